@@ -11,6 +11,7 @@
 -keep class **.BuildConfig { *; }
 
 -keep class lnrpc.** { *; }
+-keep class com.satimoto.LndBuffers { *; }
 
 -keep class com.google.firebase.** { *; }
 -keep class com.facebook.react.turbomodule.** { *; }
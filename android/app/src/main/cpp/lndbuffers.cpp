@@ -0,0 +1,62 @@
+#include <jni.h>
+#include <jsi/jsi.h>
+
+using namespace facebook;
+
+static JavaVM *javaVm = nullptr;
+static jclass lndBuffersClass = nullptr;
+static jmethodID takeMethod = nullptr;
+
+JNIEXPORT jint JNI_OnLoad(JavaVM *vm, void *) {
+    JNIEnv *env = nullptr;
+
+    if (vm->GetEnv(reinterpret_cast<void **>(&env), JNI_VERSION_1_6) != JNI_OK) {
+        return JNI_ERR;
+    }
+
+    javaVm = vm;
+    lndBuffersClass = reinterpret_cast<jclass>(env->NewGlobalRef(env->FindClass("com/satimoto/LndBuffers")));
+    takeMethod = env->GetStaticMethodID(lndBuffersClass, "take", "(I)[B");
+
+    return JNI_VERSION_1_6;
+}
+
+// Installs global.__lndTakeBuffer(bufferId) which moves a response stored by
+// LndBuffers into a JS ArrayBuffer with a single copy.
+extern "C" JNIEXPORT void JNICALL
+Java_com_satimoto_LndBuffers_nativeInstall(JNIEnv *, jclass, jlong jsContext) {
+    auto &runtime = *reinterpret_cast<jsi::Runtime *>(jsContext);
+    auto takeBuffer = jsi::Function::createFromHostFunction(
+            runtime,
+            jsi::PropNameID::forAscii(runtime, "__lndTakeBuffer"),
+            1,
+            [](jsi::Runtime &rt, const jsi::Value &, const jsi::Value *args, size_t count) -> jsi::Value {
+                if (count < 1 || !args[0].isNumber()) {
+                    throw jsi::JSError(rt, "__lndTakeBuffer: expected a buffer id");
+                }
+
+                JNIEnv *env = nullptr;
+                javaVm->GetEnv(reinterpret_cast<void **>(&env), JNI_VERSION_1_6);
+
+                auto bytes = reinterpret_cast<jbyteArray>(
+                        env->CallStaticObjectMethod(lndBuffersClass, takeMethod, static_cast<jint>(args[0].asNumber())));
+
+                if (bytes == nullptr) {
+                    return jsi::Value::null();
+                }
+
+                jsize length = env->GetArrayLength(bytes);
+                jsi::Function arrayBufferConstructor = rt.global().getPropertyAsFunction(rt, "ArrayBuffer");
+                jsi::ArrayBuffer buffer = arrayBufferConstructor
+                        .callAsConstructor(rt, static_cast<double>(length))
+                        .getObject(rt)
+                        .getArrayBuffer(rt);
+
+                env->GetByteArrayRegion(bytes, 0, length, reinterpret_cast<jbyte *>(buffer.data(rt)));
+                env->DeleteLocalRef(bytes);
+
+                return buffer;
+            });
+
+    runtime.global().setProperty(runtime, "__lndTakeBuffer", std::move(takeBuffer));
+}
@@ -0,0 +1,57 @@
+package com.satimoto;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.PromiseImpl;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+/**
+ * Collects the results of a sendCommandBatch and resolves them in request
+ * order once every command has answered.
+ */
+public class LndBatch {
+    Promise promise;
+
+    private final WritableMap[] results;
+    private int remaining;
+
+    LndBatch(int size, Promise promise) {
+        this.promise = promise;
+        this.results = new WritableMap[size];
+        this.remaining = size;
+    }
+
+    // Promise for the command at index, errors become { code, error } results
+    Promise itemPromise(int index) {
+        return new PromiseImpl(
+                args -> complete(index, (WritableMap) args[0]),
+                args -> {
+                    ReadableMap error = (ReadableMap) args[0];
+                    WritableMap result = Arguments.createMap();
+                    result.putString("code", error.hasKey("code") ? error.getString("code") : "error");
+                    result.putString("error", error.hasKey("message") ? error.getString("message") : "unknown error");
+                    complete(index, result);
+                });
+    }
+
+    private void complete(int index, WritableMap result) {
+        synchronized (this) {
+            results[index] = result;
+            remaining--;
+
+            if (remaining > 0) {
+                return;
+            }
+        }
+
+        WritableArray items = Arguments.createArray();
+
+        for (WritableMap item : results) {
+            items.pushMap(item);
+        }
+
+        promise.resolve(items);
+    }
+}
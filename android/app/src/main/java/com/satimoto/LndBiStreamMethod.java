@@ -0,0 +1,8 @@
+package com.satimoto;
+
+import lndmobile.RecvStream;
+import lndmobile.SendStream;
+
+interface LndBiStreamMethod {
+    SendStream invoke(RecvStream recvStream) throws Exception;
+}
@@ -0,0 +1,183 @@
+package com.satimoto;
+
+import android.util.Base64;
+import android.util.Log;
+
+import com.facebook.react.bridge.JavaScriptContextHolder;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Hands raw protobuf responses to JS as ArrayBuffers through a JSI binding.
+ * Responses are parked here under a buffer id and taken by JS with
+ * global.__lndTakeBuffer(bufferId). When the binding is not installed
+ * (e.g. remote debugging) responses fall back to Base64 strings. A message
+ * fanned out to several streams is encoded once and taken by each stream
+ * that emitted it.
+ */
+public class LndBuffers {
+    private static final String TAG = "LndBuffers";
+    // Longer than JS keeps events for a stream whose handler is not added yet
+    private static final long BUFFER_TTL_MS = 60000;
+
+    private static final Map<Integer, Buffer> buffers = new LinkedHashMap<>();
+    // Byte arrays hash by identity, so this holds the encoding of each shared message
+    private static final Map<byte[], Shared> shared = new WeakHashMap<>();
+    private static boolean libraryLoaded;
+    private static volatile boolean installed;
+    private static int nextBufferId = 1;
+
+    static {
+        try {
+            System.loadLibrary("lndbuffers");
+            libraryLoaded = true;
+        } catch (UnsatisfiedLinkError e) {
+            Log.w(TAG, "JSI buffers unavailable, using Base64", e);
+        }
+    }
+
+    private static class Buffer {
+        final byte[] bytes;
+        long createdAt;
+        int takers = 1;
+
+        Buffer(byte[] bytes, long createdAt) {
+            this.bytes = bytes;
+            this.createdAt = createdAt;
+        }
+    }
+
+    private static class Shared {
+        int bufferId;
+        String data;
+    }
+
+    private static native void nativeInstall(long jsContext);
+
+    static void install(ReactApplicationContext reactContext) {
+        if (!libraryLoaded) {
+            return;
+        }
+
+        reactContext.runOnJSQueueThread(() -> {
+            JavaScriptContextHolder jsContext = reactContext.getJavaScriptContextHolder();
+
+            if (jsContext == null || jsContext.get() == 0) {
+                return;
+            }
+
+            nativeInstall(jsContext.get());
+            installed = true;
+            Log.i(TAG, "JSI buffers installed");
+        });
+    }
+
+    static void uninstall() {
+        installed = false;
+
+        synchronized (buffers) {
+            buffers.clear();
+            shared.clear();
+        }
+    }
+
+    // Marks a message that several streams may put, each put then adds a taker to the same buffer
+    static void share(byte[] bytes) {
+        if (bytes == null || bytes.length == 0) {
+            return;
+        }
+
+        synchronized (buffers) {
+            shared.putIfAbsent(bytes, new Shared());
+        }
+    }
+
+    static void putData(WritableMap params, byte[] bytes) {
+        if (bytes == null || bytes.length == 0) {
+            params.putString("data", "");
+        } else if (installed) {
+            params.putInt("bufferId", store(bytes));
+        } else {
+            params.putString("data", encode(bytes));
+        }
+    }
+
+    private static String encode(byte[] bytes) {
+        Shared message;
+
+        synchronized (buffers) {
+            message = shared.get(bytes);
+
+            if (message != null && message.data != null) {
+                return message.data;
+            }
+        }
+
+        String data = Base64.encodeToString(bytes, Base64.NO_WRAP);
+
+        if (message != null) {
+            synchronized (buffers) {
+                message.data = data;
+            }
+        }
+
+        return data;
+    }
+
+    static int store(byte[] bytes) {
+        long now = System.currentTimeMillis();
+
+        synchronized (buffers) {
+            // Evict buffers that were never taken, e.g. events for a stream JS stopped listening to
+            Iterator<Buffer> iterator = buffers.values().iterator();
+            while (iterator.hasNext() && now - iterator.next().createdAt > BUFFER_TTL_MS) {
+                iterator.remove();
+            }
+
+            Shared message = shared.get(bytes);
+            Buffer existing = message != null ? buffers.get(message.bufferId) : null;
+
+            // Only streams that emit the message take it, including a late subscriber it is replayed to
+            if (existing != null) {
+                // Moved to the end so the new taker gets the full TTL
+                buffers.remove(message.bufferId);
+                existing.createdAt = now;
+                existing.takers++;
+                buffers.put(message.bufferId, existing);
+                return message.bufferId;
+            }
+
+            int bufferId = nextBufferId++;
+            buffers.put(bufferId, new Buffer(bytes, now));
+
+            if (message != null) {
+                message.bufferId = bufferId;
+            }
+
+            return bufferId;
+        }
+    }
+
+    // Called from the JSI binding on the JS thread
+    static byte[] take(int bufferId) {
+        synchronized (buffers) {
+            Buffer buffer = buffers.get(bufferId);
+
+            if (buffer == null) {
+                return null;
+            }
+
+            // Shared buffers stay until every stream took them or they expire
+            if (--buffer.takers <= 0) {
+                buffers.remove(bufferId);
+            }
+
+            return buffer.bytes;
+        }
+    }
+}
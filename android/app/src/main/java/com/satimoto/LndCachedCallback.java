@@ -0,0 +1,22 @@
+package com.satimoto;
+
+import com.facebook.react.bridge.Promise;
+
+public class LndCachedCallback extends LndCallback {
+    String method;
+    String cacheKey;
+    long cacheGeneration;
+
+    LndCachedCallback(Promise promise, LndMetrics metrics, long startedAt, String method, String cacheKey) {
+        super(promise, metrics, startedAt);
+        this.method = method;
+        this.cacheKey = cacheKey;
+        this.cacheGeneration = LndResponseCache.generation(method);
+    }
+
+    @Override
+    public void onResponse(byte[] bytes) {
+        LndResponseCache.put(method, cacheKey, cacheGeneration, bytes);
+        super.onResponse(bytes);
+    }
+}
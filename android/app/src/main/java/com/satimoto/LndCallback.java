@@ -1,35 +1,70 @@
 package com.satimoto;
 
-import android.util.Base64;
-
 import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.WritableMap;
 
+import java.util.Collections;
+import java.util.List;
+
 import lndmobile.Callback;
 
 public class LndCallback implements Callback {
     Promise promise;
+    LndMetrics metrics;
+    long startedAt;
+    String flightKey;
 
     LndCallback(Promise promise) {
         this.promise = promise;
     }
 
+    LndCallback(Promise promise, LndMetrics metrics, long startedAt) {
+        this.promise = promise;
+        this.metrics = metrics;
+        this.startedAt = startedAt;
+    }
+
     @Override
     public void onError(Exception e) {
+        recordEnd(0, true);
         promise.reject("error", e);
+
+        for (Promise follower : completeFlight()) {
+            follower.reject("error", e);
+        }
     }
 
     @Override
     public void onResponse(byte[] bytes) {
-        String base64Data = "";
-        if (bytes != null && bytes.length > 0) {
-            base64Data = Base64.encodeToString(bytes, Base64.NO_WRAP);
+        recordEnd(bytes != null ? bytes.length : 0, false);
+
+        if (metrics != null) {
+            LndStartup.recordResponse(metrics.method);
+            LndResponseCache.onCommand(metrics.method);
+        }
+
+        resolve(promise, bytes);
+
+        for (Promise follower : completeFlight()) {
+            resolve(follower, bytes);
         }
+    }
 
+    // Each promise needs its own map, and its own buffer when responses go over JSI
+    private void resolve(Promise promise, byte[] bytes) {
         WritableMap params = Arguments.createMap();
-        params.putString("data", base64Data);
+        LndBuffers.putData(params, bytes);
         promise.resolve(params);
     }
-}
 
+    List<Promise> completeFlight() {
+        return flightKey != null ? LndSingleFlight.complete(flightKey) : Collections.emptyList();
+    }
+
+    void recordEnd(int responseBytes, boolean error) {
+        if (metrics != null) {
+            metrics.end(startedAt, responseBytes, error);
+        }
+    }
+}
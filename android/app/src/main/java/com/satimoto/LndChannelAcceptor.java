@@ -0,0 +1,147 @@
+package com.satimoto;
+
+import android.util.Log;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.modules.core.DeviceEventManagerModule.RCTDeviceEventEmitter;
+
+import java.util.List;
+
+import lndmobile.Lndmobile;
+import lndmobile.RecvStream;
+import lndmobile.SendStream;
+import lnrpc.LightningOuterClass;
+
+/**
+ * Answers ChannelAcceptor requests on the Go callback thread using native
+ * rules, JS is only notified of each decision afterwards.
+ */
+public class LndChannelAcceptor implements RecvStream {
+    private static final String TAG = "LndChannelAcceptor";
+    private static final String eventName = "channelAcceptorEvent";
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    RCTDeviceEventEmitter emitter;
+
+    private volatile List<LndChannelAcceptorRule> rules;
+    private SendStream sendStream;
+    private boolean closed;
+
+    LndChannelAcceptor(RCTDeviceEventEmitter emitter, List<LndChannelAcceptorRule> rules) {
+        this.emitter = emitter;
+        this.rules = rules;
+    }
+
+    synchronized void start() throws Exception {
+        sendStream = Lndmobile.channelAcceptor(this);
+
+        if (closed) {
+            // Stopped while starting
+            sendStream.stop();
+        }
+    }
+
+    void setRules(List<LndChannelAcceptorRule> rules) {
+        this.rules = rules;
+    }
+
+    synchronized boolean isClosed() {
+        return closed;
+    }
+
+    synchronized void stop() {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+
+        if (sendStream == null) {
+            return;
+        }
+
+        try {
+            sendStream.stop();
+        } catch (Exception e) {
+            Log.e(TAG, "Error stopping channel acceptor", e);
+        }
+    }
+
+    @Override
+    public void onError(Exception e) {
+        synchronized (this) {
+            closed = true;
+        }
+
+        String message = e.getLocalizedMessage();
+        WritableMap params = Arguments.createMap();
+        params.putString("type", message != null && message.contains("EOF") ? "end" : "error");
+        params.putString("error", message);
+        emitter.emit(eventName, params);
+    }
+
+    @Override
+    public synchronized void onResponse(byte[] bytes) {
+        if (closed) {
+            return;
+        }
+
+        LightningOuterClass.ChannelAcceptRequest request;
+
+        try {
+            request = LightningOuterClass.ChannelAcceptRequest.parseFrom(bytes);
+        } catch (Exception e) {
+            Log.e(TAG, "Error parsing channel accept request", e);
+            return;
+        }
+
+        String pubkey = toHex(request.getNodePubkey().toByteArray());
+        boolean announce = (request.getChannelFlags() & 1) != 0;
+        LndChannelAcceptorRule.Decision decision = LndChannelAcceptorRule.evaluate(rules, pubkey, request.getFundingAmt(),
+                announce, request.getWantsZeroConf(), request.getWantsScidAlias());
+
+        LightningOuterClass.ChannelAcceptResponse.Builder response = LightningOuterClass.ChannelAcceptResponse.newBuilder()
+                .setPendingChanId(request.getPendingChanId())
+                .setAccept(decision.accept)
+                .setZeroConf(decision.zeroConf);
+
+        if (decision.error != null) {
+            response.setError(decision.error);
+        }
+
+        try {
+            sendStream.send(response.build().toByteArray());
+        } catch (Exception e) {
+            Log.e(TAG, "Error answering channel accept request", e);
+            return;
+        }
+
+        Log.i(TAG, (decision.accept ? "Accepted" : "Rejected") + " channel from " + pubkey);
+
+        WritableMap params = Arguments.createMap();
+        params.putString("type", "data");
+        params.putString("pubkey", pubkey);
+        params.putString("pendingChanId", toHex(request.getPendingChanId().toByteArray()));
+        params.putDouble("fundingAmt", request.getFundingAmt());
+        params.putBoolean("accept", decision.accept);
+        params.putBoolean("zeroConf", decision.zeroConf);
+
+        if (decision.error != null) {
+            params.putString("error", decision.error);
+        }
+
+        emitter.emit(eventName, params);
+    }
+
+    private static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0xf];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0xf];
+        }
+
+        return new String(chars);
+    }
+}
@@ -0,0 +1,118 @@
+package com.satimoto;
+
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A channel acceptor rule, matching on the remote pubkey and funding amount
+ * and deciding whether zero-conf, scid-alias and public channels are allowed.
+ */
+public class LndChannelAcceptorRule {
+    String pubkey;
+    long minCapacity;
+    long maxCapacity;
+    boolean allowZeroConf;
+    boolean allowScidAlias = true;
+    boolean privateOnly;
+
+    static class Decision {
+        final boolean accept;
+        final boolean zeroConf;
+        final String error;
+
+        Decision(boolean accept, boolean zeroConf, String error) {
+            this.accept = accept;
+            this.zeroConf = zeroConf;
+            this.error = error;
+        }
+    }
+
+    static LndChannelAcceptorRule fromReadableMap(ReadableMap map) {
+        LndChannelAcceptorRule rule = new LndChannelAcceptorRule();
+
+        if (map.hasKey("pubkey") && !map.isNull("pubkey")) {
+            rule.pubkey = map.getString("pubkey").toLowerCase(Locale.ROOT);
+        }
+
+        if (map.hasKey("minCapacity")) {
+            rule.minCapacity = (long) map.getDouble("minCapacity");
+        }
+
+        if (map.hasKey("maxCapacity")) {
+            rule.maxCapacity = (long) map.getDouble("maxCapacity");
+        }
+
+        if (map.hasKey("allowZeroConf")) {
+            rule.allowZeroConf = map.getBoolean("allowZeroConf");
+        }
+
+        if (map.hasKey("allowScidAlias")) {
+            rule.allowScidAlias = map.getBoolean("allowScidAlias");
+        }
+
+        if (map.hasKey("privateOnly")) {
+            rule.privateOnly = map.getBoolean("privateOnly");
+        }
+
+        return rule;
+    }
+
+    static List<LndChannelAcceptorRule> fromReadableArray(ReadableArray array) {
+        List<LndChannelAcceptorRule> rules = new ArrayList<>();
+
+        for (int i = 0; i < array.size(); i++) {
+            rules.add(fromReadableMap(array.getMap(i)));
+        }
+
+        return rules;
+    }
+
+    // Rules for the pubkey take precedence over rules without one, no matching rule rejects
+    static Decision evaluate(List<LndChannelAcceptorRule> rules, String pubkey, long fundingAmt,
+                             boolean announce, boolean wantsZeroConf, boolean wantsScidAlias) {
+        LndChannelAcceptorRule match = null;
+
+        for (LndChannelAcceptorRule rule : rules) {
+            if (rule.pubkey != null && rule.pubkey.equals(pubkey)) {
+                match = rule;
+                break;
+            } else if (rule.pubkey == null && match == null) {
+                match = rule;
+            }
+        }
+
+        if (match == null) {
+            return new Decision(false, false, "channel not expected");
+        }
+
+        return match.decide(fundingAmt, announce, wantsZeroConf, wantsScidAlias);
+    }
+
+    private Decision decide(long fundingAmt, boolean announce, boolean wantsZeroConf, boolean wantsScidAlias) {
+        if (fundingAmt < minCapacity) {
+            return new Decision(false, false, "channel capacity below " + minCapacity);
+        }
+
+        if (maxCapacity > 0 && fundingAmt > maxCapacity) {
+            return new Decision(false, false, "channel capacity above " + maxCapacity);
+        }
+
+        if (privateOnly && announce) {
+            return new Decision(false, false, "only private channels are accepted");
+        }
+
+        if (wantsZeroConf && !allowZeroConf) {
+            return new Decision(false, false, "zero-conf channels are not accepted");
+        }
+
+        if (wantsScidAlias && !allowScidAlias) {
+            return new Decision(false, false, "scid-alias channels are not accepted");
+        }
+
+        return new Decision(true, wantsZeroConf, null);
+    }
+}
@@ -0,0 +1,335 @@
+package com.satimoto;
+
+import android.system.ErrnoException;
+import android.system.Os;
+import android.system.OsConstants;
+
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.ReadableMapKeySetIterator;
+
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Typed lnd.conf model of sections holding ordered, possibly repeated keys.
+ * The defaults are a shared base with a per-network overlay, JS overrides are
+ * merged key by key and the file is only replaced atomically when it changes.
+ */
+public class LndConf {
+    static final String APPLICATION = "Application Options";
+    static final String BITCOIN = "Bitcoin";
+    static final String BITCOIND = "Bitcoind";
+    static final String NEUTRINO = "Neutrino";
+    static final String PROTOCOL = "protocol";
+    static final String AUTOPILOT = "autopilot";
+
+    // Section names are matched case-insensitively like lnd does, but keep their first spelling
+    private final Map<String, String> sectionNames = new LinkedHashMap<>();
+    private final Map<String, Map<String, List<String>>> sections = new LinkedHashMap<>();
+
+    static LndConf defaults(String network) {
+        LndConf conf = new LndConf()
+                .set(APPLICATION, "debuglevel", "info")
+                .set(APPLICATION, "maxbackoff", "2s")
+                .set(APPLICATION, "nobootstrap", "1")
+                .set(APPLICATION, "nolisten", "1")
+                .set(APPLICATION, "norest", "1")
+                .set(APPLICATION, "sync-freelist", "1")
+                .set(APPLICATION, "accept-keysend", "1")
+                .set(APPLICATION, "feeurl", "https://nodes.lightning.computer/fees/v1/btc-fee-estimates.json")
+                .set(APPLICATION, "tlsdisableautofill", "1")
+                .set(APPLICATION, "gc-canceled-invoices-on-startup", "1")
+                .set(APPLICATION, "gc-canceled-invoices-on-the-fly", "1")
+                .set(APPLICATION, "ignore-historical-gossip-filters", "1")
+                .set(BITCOIN, "bitcoin.active", "1")
+                .set(BITCOIN, "bitcoin." + network, "1")
+                .set(BITCOIN, "bitcoin.node", "neutrino");
+
+        switch (network) {
+            case "mainnet":
+                conf.set(APPLICATION, "debuglevel", "warn")
+                        .set(NEUTRINO, "neutrino.addpeer",
+                                "btcd-mainnet.lightning.computer",
+                                "mainnet1-btcd.zaphq.io",
+                                "mainnet2-btcd.zaphq.io",
+                                "mainnet3-btcd.zaphq.io",
+                                "mainnet4-btcd.zaphq.io",
+                                "bb2.breez.technology")
+                        .set(NEUTRINO, "neutrino.validatechannels", "false");
+                break;
+            case "testnet":
+                conf.set(NEUTRINO, "neutrino.connect", "faucet.lightning.community")
+                        .set(NEUTRINO, "neutrino.validatechannels", "false");
+                break;
+            case "regtest":
+                conf.remove(APPLICATION, "feeurl")
+                        .set(BITCOIN, "bitcoin.node", "bitcoind")
+                        .set(BITCOIND, "bitcoind.rpchost", "10.0.2.2:18449")
+                        .set(BITCOIND, "bitcoind.rpcuser", "polaruser")
+                        .set(BITCOIND, "bitcoind.rpcpass", "polarpass")
+                        .set(BITCOIND, "bitcoind.zmqpubrawblock", "tcp://10.0.2.2:28340")
+                        .set(BITCOIND, "bitcoind.zmqpubrawtx", "tcp://10.0.2.2:29341");
+                break;
+        }
+
+        return conf.set(PROTOCOL, "protocol.option-scid-alias", "true")
+                .set(PROTOCOL, "protocol.zero-conf", "true")
+                .set(AUTOPILOT, "autopilot.active", "0")
+                .set(AUTOPILOT, "autopilot.private", "0")
+                .set(AUTOPILOT, "autopilot.minconfs", "0")
+                .set(AUTOPILOT, "autopilot.conftarget", "30")
+                .set(AUTOPILOT, "autopilot.allocation", "1.0")
+                .set(AUTOPILOT, "autopilot.heuristic", "externalscore:0.95", "preferential:0.05");
+    }
+
+    static LndConf parse(String content) {
+        LndConf conf = new LndConf();
+        String section = APPLICATION;
+
+        for (String line : content.split("\n")) {
+            line = line.trim();
+
+            if (line.isEmpty() || line.startsWith(";") || line.startsWith("#")) {
+                continue;
+            }
+
+            if (line.startsWith("[") && line.endsWith("]")) {
+                section = line.substring(1, line.length() - 1).trim();
+                conf.section(section);
+                continue;
+            }
+
+            int separator = line.indexOf('=');
+
+            if (separator > 0) {
+                conf.add(section, line.substring(0, separator).trim(), line.substring(separator + 1).trim());
+            }
+        }
+
+        return conf;
+    }
+
+    // Reads {section: {key: value | [values] | null}}, a null value removes the key
+    static LndConf fromMap(ReadableMap map) {
+        LndConf conf = new LndConf();
+        ReadableMapKeySetIterator sectionIterator = map.keySetIterator();
+
+        while (sectionIterator.hasNextKey()) {
+            String section = sectionIterator.nextKey();
+            ReadableMap keys = map.getMap(section);
+            ReadableMapKeySetIterator keyIterator = keys.keySetIterator();
+            conf.section(section);
+
+            while (keyIterator.hasNextKey()) {
+                String key = keyIterator.nextKey();
+
+                switch (keys.getType(key)) {
+                    case Null:
+                        conf.values(section).put(key, new ArrayList<>());
+                        break;
+                    case Array:
+                        ReadableArray array = keys.getArray(key);
+                        List<String> values = new ArrayList<>();
+
+                        for (int i = 0; i < array.size(); i++) {
+                            values.add(toValue(array, i));
+                        }
+
+                        conf.values(section).put(key, values);
+                        break;
+                    case Boolean:
+                        conf.set(section, key, toValue(keys.getBoolean(key)));
+                        break;
+                    case Number:
+                        conf.set(section, key, toValue(keys.getDouble(key)));
+                        break;
+                    default:
+                        conf.set(section, key, keys.getString(key));
+                }
+            }
+        }
+
+        return conf;
+    }
+
+    LndConf set(String section, String key, String... values) {
+        values(section).put(key, new ArrayList<>(Arrays.asList(values)));
+        return this;
+    }
+
+    LndConf add(String section, String key, String value) {
+        Map<String, List<String>> keys = values(section);
+
+        if (!keys.containsKey(key)) {
+            keys.put(key, new ArrayList<>());
+        }
+
+        keys.get(key).add(value);
+        return this;
+    }
+
+    LndConf remove(String section, String key) {
+        values(section).remove(key);
+        return this;
+    }
+
+    // Replaces each key set in the overrides, keys with no values are removed
+    LndConf merge(LndConf overrides) {
+        for (Map.Entry<String, Map<String, List<String>>> section : overrides.sections.entrySet()) {
+            String name = overrides.sectionNames.get(section.getKey());
+
+            for (Map.Entry<String, List<String>> entry : section.getValue().entrySet()) {
+                if (entry.getValue().isEmpty()) {
+                    remove(name, entry.getKey());
+                } else {
+                    values(name).put(entry.getKey(), new ArrayList<>(entry.getValue()));
+                }
+            }
+        }
+
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder content = new StringBuilder();
+
+        for (Map.Entry<String, Map<String, List<String>>> section : sections.entrySet()) {
+            if (section.getValue().isEmpty()) {
+                continue;
+            }
+
+            if (content.length() > 0) {
+                content.append('\n');
+            }
+
+            content.append('[').append(sectionNames.get(section.getKey())).append("]\n");
+
+            for (Map.Entry<String, List<String>> entry : section.getValue().entrySet()) {
+                for (String value : entry.getValue()) {
+                    content.append(entry.getKey()).append('=').append(value).append('\n');
+                }
+            }
+        }
+
+        return content.toString();
+    }
+
+    // Returns false when the file already holds this conf
+    boolean writeIfChanged(String path) throws IOException {
+        return writeIfChanged(path, toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Writes to a temp file, syncs it and renames it over the target so a crash never leaves a partial conf
+    static boolean writeIfChanged(String path, byte[] content) throws IOException {
+        File file = new File(path);
+
+        if (file.exists() && file.length() == content.length && MessageDigest.isEqual(sha256(readFile(file)), sha256(content))) {
+            return false;
+        }
+
+        File parent = file.getParentFile();
+        File temp = new File(path + ".tmp");
+        parent.mkdirs();
+
+        try (FileOutputStream outputStream = new FileOutputStream(temp)) {
+            outputStream.write(content);
+            outputStream.getFD().sync();
+        }
+
+        if (!temp.renameTo(file)) {
+            temp.delete();
+            throw new IOException("Could not rename " + temp + " to " + file);
+        }
+
+        syncDirectory(parent);
+        return true;
+    }
+
+    private Map<String, List<String>> values(String section) {
+        return sections.get(section(section));
+    }
+
+    private String section(String section) {
+        String key = section.toLowerCase(Locale.ROOT);
+
+        if (!sections.containsKey(key)) {
+            sectionNames.put(key, section);
+            sections.put(key, new LinkedHashMap<>());
+        }
+
+        return key;
+    }
+
+    private static String toValue(ReadableArray array, int index) {
+        switch (array.getType(index)) {
+            case Boolean:
+                return toValue(array.getBoolean(index));
+            case Number:
+                return toValue(array.getDouble(index));
+            default:
+                return array.getString(index);
+        }
+    }
+
+    private static String toValue(Object value) {
+        if (value instanceof Boolean) {
+            return (Boolean) value ? "1" : "0";
+        } else if (value instanceof Double && (Double) value == Math.rint((Double) value)) {
+            return Long.toString(((Double) value).longValue());
+        }
+
+        return String.valueOf(value);
+    }
+
+    private static byte[] readFile(File file) throws IOException {
+        byte[] bytes = new byte[(int) file.length()];
+
+        try (FileInputStream inputStream = new FileInputStream(file)) {
+            int offset = 0;
+            int read;
+
+            while (offset < bytes.length && (read = inputStream.read(bytes, offset, bytes.length - offset)) > 0) {
+                offset += read;
+            }
+        }
+
+        return bytes;
+    }
+
+    private static byte[] sha256(byte[] bytes) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(bytes);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Makes the rename durable, not all filesystems allow syncing a directory
+    static void syncDirectory(File directory) {
+        try {
+            FileDescriptor fd = Os.open(directory.getPath(), OsConstants.O_RDONLY, 0);
+
+            try {
+                Os.fsync(fd);
+            } finally {
+                Os.close(fd);
+            }
+        } catch (ErrnoException e) {
+            // Ignored, the file itself has been synced
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.satimoto;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.WritableMap;
+
+import lndmobile.Callback;
+import lnrpc.LightningOuterClass;
+
+/**
+ * Pages through ListPayments or ListInvoices by driving index_offset and the
+ * page size fields, so only one bounded page is held in memory at a time.
+ */
+public class LndCursor {
+    long cursorId;
+    String method;
+    LndSyncMethod syncMethod;
+    byte[] request;
+    long pageSize;
+    LndProjection projection;
+    LndCursorListener listener;
+    LndMetrics metrics;
+
+    private boolean reversed;
+    private long indexOffset;
+    private boolean fetching;
+    private boolean done;
+
+    LndCursor(long id, String method, LndSyncMethod syncMethod, byte[] request, long pageSize, LndProjection projection, LndCursorListener listener) throws Exception {
+        if (pageSize <= 0) {
+            // lnd treats 0 as no limit, which would never end a cursor on an empty page
+            throw new IllegalArgumentException("page size must be positive: " + pageSize);
+        }
+
+        this.cursorId = id;
+        this.method = method;
+        this.syncMethod = syncMethod;
+        this.request = request;
+        this.pageSize = pageSize;
+        this.projection = projection;
+        this.listener = listener;
+        this.metrics = LndMetrics.get(method);
+
+        if ("ListPayments".equals(method)) {
+            LightningOuterClass.ListPaymentsRequest listPayments = LightningOuterClass.ListPaymentsRequest.parseFrom(request);
+            reversed = listPayments.getReversed();
+            indexOffset = listPayments.getIndexOffset();
+        } else if ("ListInvoices".equals(method)) {
+            LightningOuterClass.ListInvoiceRequest listInvoices = LightningOuterClass.ListInvoiceRequest.parseFrom(request);
+            reversed = listInvoices.getReversed();
+            indexOffset = listInvoices.getIndexOffset();
+        } else {
+            throw new IllegalArgumentException("cursor not supported: " + method);
+        }
+    }
+
+    synchronized void nextPage(Promise promise) {
+        if (fetching) {
+            promise.reject("error", "page already requested");
+            return;
+        }
+
+        if (done) {
+            promise.resolve(pageResult(null));
+            return;
+        }
+
+        fetching = true;
+        long startedAt = metrics.begin();
+
+        try {
+            byte[] bytes = pageRequest();
+            metrics.recordRequest(bytes.length);
+
+            syncMethod.invoke(bytes, new Callback() {
+                @Override
+                public void onError(Exception e) {
+                    metrics.end(startedAt, 0, true);
+
+                    synchronized (LndCursor.this) {
+                        fetching = false;
+                    }
+
+                    promise.reject("error", e);
+                }
+
+                @Override
+                public void onResponse(byte[] bytes) {
+                    metrics.end(startedAt, bytes != null ? bytes.length : 0, false);
+                    onPage(bytes, promise);
+                }
+            });
+        } catch (Exception e) {
+            metrics.end(startedAt, 0, true);
+            fetching = false;
+            promise.reject("error", e);
+        }
+    }
+
+    private byte[] pageRequest() throws Exception {
+        if ("ListPayments".equals(method)) {
+            return LightningOuterClass.ListPaymentsRequest.parseFrom(request).toBuilder()
+                    .setIndexOffset(indexOffset)
+                    .setMaxPayments(pageSize)
+                    .build()
+                    .toByteArray();
+        }
+
+        return LightningOuterClass.ListInvoiceRequest.parseFrom(request).toBuilder()
+                .setIndexOffset(indexOffset)
+                .setNumMaxInvoices(pageSize)
+                .build()
+                .toByteArray();
+    }
+
+    private void onPage(byte[] bytes, Promise promise) {
+        int count;
+        long firstIndexOffset;
+        long lastIndexOffset;
+
+        if (bytes == null) {
+            // gomobile delivers an empty page as null
+            bytes = new byte[0];
+        }
+
+        try {
+            if ("ListPayments".equals(method)) {
+                LightningOuterClass.ListPaymentsResponse listPayments = LightningOuterClass.ListPaymentsResponse.parseFrom(bytes);
+                count = listPayments.getPaymentsCount();
+                firstIndexOffset = listPayments.getFirstIndexOffset();
+                lastIndexOffset = listPayments.getLastIndexOffset();
+            } else {
+                LightningOuterClass.ListInvoiceResponse listInvoices = LightningOuterClass.ListInvoiceResponse.parseFrom(bytes);
+                count = listInvoices.getInvoicesCount();
+                firstIndexOffset = listInvoices.getFirstIndexOffset();
+                lastIndexOffset = listInvoices.getLastIndexOffset();
+            }
+
+            if (projection != null) {
+                bytes = projection.project(bytes);
+            }
+        } catch (Exception e) {
+            synchronized (this) {
+                fetching = false;
+            }
+
+            promise.reject("error", e);
+            return;
+        }
+
+        synchronized (this) {
+            fetching = false;
+            // Reversed pages walk back from the first index of the previous page
+            indexOffset = reversed ? firstIndexOffset : lastIndexOffset;
+            done = count < pageSize || (reversed && indexOffset <= 1);
+        }
+
+        promise.resolve(pageResult(bytes));
+
+        if (done) {
+            listener.onCursorClose(cursorId);
+        }
+    }
+
+    private WritableMap pageResult(byte[] bytes) {
+        WritableMap params = Arguments.createMap();
+        params.putDouble("cursorId", cursorId);
+        params.putBoolean("done", done);
+        params.putDouble("indexOffset", indexOffset);
+
+        if (bytes != null) {
+            LndBuffers.putData(params, bytes);
+        }
+
+        return params;
+    }
+}
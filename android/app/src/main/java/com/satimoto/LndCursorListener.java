@@ -0,0 +1,5 @@
+package com.satimoto;
+
+interface LndCursorListener {
+    void onCursorClose(long cursorId);
+}
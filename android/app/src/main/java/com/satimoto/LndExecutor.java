@@ -0,0 +1,168 @@
+package com.satimoto;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded executors for LND calls, one per priority lane so that slow graph
+ * and list calls never queue in front of payments and invoices.
+ */
+public class LndExecutor {
+    enum Lane {
+        HIGH,
+        NORMAL,
+        LOW
+    }
+
+    private static final int QUEUE_SIZE = 256;
+    private static final long KEEP_ALIVE = 30;
+
+    private static final Map<String, Lane> methodLanes = new HashMap<>();
+    private static final Map<Lane, LndExecutor> executors = new EnumMap<>(Lane.class);
+
+    static {
+        for (String method : new String[]{
+                "AddInvoice", "DecodePayReq", "GetState", "InitWallet", "InvoicesAddHoldInvoice",
+                "InvoicesCancelInvoice", "InvoicesSettleInvoice", "LookupInvoice", "RouterSendPaymentV2",
+                "RouterSendToRouteV2", "RouterTrackPaymentV2", "SendPaymentSync", "UnlockWallet"}) {
+            methodLanes.put(method, Lane.HIGH);
+        }
+
+        for (String method : new String[]{
+                "ClosedChannels", "DescribeGraph", "ExportAllChannelBackups", "GetChanInfo", "GetNetworkInfo",
+                "GetNodeInfo", "GetTransactions", "ListChannels", "ListInvoices", "ListPayments", "ListPeers"}) {
+            methodLanes.put(method, Lane.LOW);
+        }
+
+        executors.put(Lane.HIGH, new LndExecutor(Lane.HIGH, 2));
+        executors.put(Lane.NORMAL, new LndExecutor(Lane.NORMAL, 2));
+        executors.put(Lane.LOW, new LndExecutor(Lane.LOW, 1));
+    }
+
+    Lane lane;
+    ThreadPoolExecutor executor;
+
+    private long submitted;
+    private long completed;
+    private long rejected;
+    private long started;
+    private long totalWait;
+    private long maxWait;
+
+    private LndExecutor(Lane lane, int threads) {
+        String name = "lnd-" + lane.name().toLowerCase(Locale.ROOT) + "-";
+        AtomicInteger threadCount = new AtomicInteger();
+
+        this.lane = lane;
+        this.executor = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(QUEUE_SIZE),
+                runnable -> new Thread(runnable, name + threadCount.incrementAndGet()));
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    static Lane laneFor(String method) {
+        Lane lane = methodLanes.get(method);
+        return lane != null ? lane : Lane.NORMAL;
+    }
+
+    // Runs the task on the method's lane, rejecting the promise if the lane is full
+    static boolean execute(String method, Promise promise, Runnable runnable) {
+        return execute(laneFor(method), promise, runnable);
+    }
+
+    static boolean execute(Lane lane, Promise promise, Runnable runnable) {
+        try {
+            executors.get(lane).submit(runnable);
+            return true;
+        } catch (RejectedExecutionException e) {
+            promise.reject("error", queueFullMessage(lane), e);
+            return false;
+        }
+    }
+
+    static String queueFullMessage(Lane lane) {
+        return "LND " + lane.name().toLowerCase(Locale.ROOT) + " queue is full";
+    }
+
+    static void setThreads(Lane lane, int threads) {
+        ThreadPoolExecutor executor = executors.get(lane).executor;
+
+        if (threads > executor.getMaximumPoolSize()) {
+            executor.setMaximumPoolSize(threads);
+            executor.setCorePoolSize(threads);
+        } else if (threads > 0) {
+            executor.setCorePoolSize(threads);
+            executor.setMaximumPoolSize(threads);
+        }
+    }
+
+    static WritableMap snapshot() {
+        WritableMap params = Arguments.createMap();
+
+        for (LndExecutor executor : executors.values()) {
+            params.putMap(executor.lane.name().toLowerCase(Locale.ROOT), executor.toWritableMap());
+        }
+
+        return params;
+    }
+
+    private void submit(Runnable runnable) {
+        long queuedAt = System.nanoTime();
+
+        synchronized (this) {
+            submitted++;
+        }
+
+        try {
+            executor.execute(() -> {
+                recordWait(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - queuedAt));
+
+                try {
+                    runnable.run();
+                } finally {
+                    recordCompleted();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            synchronized (this) {
+                rejected++;
+            }
+
+            throw e;
+        }
+    }
+
+    private synchronized void recordWait(long wait) {
+        started++;
+        totalWait += wait;
+        maxWait = Math.max(maxWait, wait);
+    }
+
+    private synchronized void recordCompleted() {
+        completed++;
+    }
+
+    private synchronized WritableMap toWritableMap() {
+        WritableMap params = Arguments.createMap();
+        params.putDouble("threads", executor.getMaximumPoolSize());
+        params.putDouble("active", executor.getActiveCount());
+        params.putDouble("queueDepth", executor.getQueue().size());
+        params.putDouble("submitted", submitted);
+        params.putDouble("completed", completed);
+        params.putDouble("rejected", rejected);
+        params.putDouble("averageWait", started > 0 ? (double) totalWait / started : 0);
+        params.putDouble("maxWait", maxWait);
+        return params;
+    }
+}
@@ -0,0 +1,81 @@
+package com.satimoto;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableMap;
+
+/**
+ * Log-linear histogram in the style of HdrHistogram, each power of two range is
+ * split into 16 sub-buckets which keeps recorded values within ~6% precision.
+ */
+public class LndHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+    private final long[] counts = new long[BUCKET_COUNT];
+    private long count;
+    private long total;
+    private long min = Long.MAX_VALUE;
+    private long max;
+
+    synchronized void record(long value) {
+        value = Math.max(0, value);
+        counts[indexOf(value)]++;
+        count++;
+        total += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    synchronized long percentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+
+        long target = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+
+            if (seen >= target) {
+                return Math.min(highestValueAt(i), max);
+            }
+        }
+
+        return max;
+    }
+
+    // Values are recorded in microseconds and reported in milliseconds
+    synchronized WritableMap toWritableMap() {
+        WritableMap params = Arguments.createMap();
+        params.putDouble("count", count);
+        params.putDouble("min", count > 0 ? min / 1000.0 : 0);
+        params.putDouble("mean", count > 0 ? total / 1000.0 / count : 0);
+        params.putDouble("p50", percentile(50) / 1000.0);
+        params.putDouble("p90", percentile(90) / 1000.0);
+        params.putDouble("p99", percentile(99) / 1000.0);
+        params.putDouble("max", max / 1000.0);
+        return params;
+    }
+
+    private static int indexOf(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) & (SUB_BUCKET_COUNT - 1);
+        return (shift + 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    private static long highestValueAt(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+
+        int shift = index / SUB_BUCKET_COUNT - 1;
+        long lowest = (long) (SUB_BUCKET_COUNT + index % SUB_BUCKET_COUNT) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
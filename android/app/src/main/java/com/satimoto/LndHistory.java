@@ -0,0 +1,314 @@
+package com.satimoto;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.modules.core.DeviceEventManagerModule.RCTDeviceEventEmitter;
+import com.google.protobuf.CodedOutputStream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import lndmobile.Callback;
+import lndmobile.Lndmobile;
+import lndmobile.RecvStream;
+import lnrpc.LightningOuterClass;
+
+/**
+ * Native index of invoices and payments kept under the lnd dir. The add,
+ * settle and payment index checkpoints are derived from the stored records,
+ * so on open only the delta and the records still open or in flight are
+ * fetched with ListInvoices and ListPayments before new invoices are followed
+ * with SubscribeInvoices. JS pages through the index instead of refetching
+ * the history on every launch.
+ */
+public class LndHistory implements RecvStream {
+    private static final String TAG = "LndHistory";
+    private static final String eventName = "historyEvent";
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final int SYNC_PAGE_SIZE = 500;
+    private static final long CALL_TIMEOUT = 60;
+
+    static final String INVOICES = "invoices";
+    static final String PAYMENTS = "payments";
+
+    // Syncs block on page after page of list calls, so they get their own thread instead of a LOW lane
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor(
+            runnable -> new Thread(runnable, "lnd-history"));
+
+    private static volatile LndHistory instance;
+
+    private final File directory;
+    private volatile LndRecordLog invoices;
+    private volatile LndRecordLog payments;
+    private volatile RCTDeviceEventEmitter emitter;
+    private boolean subscribed;
+
+    private LndHistory(Context context) {
+        directory = new File(LndUtils.lndPath(context), "history");
+    }
+
+    static synchronized LndHistory get(Context context) {
+        if (instance == null) {
+            instance = new LndHistory(context.getApplicationContext());
+        }
+
+        return instance;
+    }
+
+    static void execute(Runnable runnable) {
+        executor.execute(runnable);
+    }
+
+    // Keeps the index current with payments sent or tracked through JS streams
+    static void onStreamMessage(String method, byte[] bytes) {
+        LndHistory history = instance;
+
+        if (history == null || history.payments == null) {
+            return;
+        }
+
+        switch (method) {
+            case "RouterSendPaymentV2":
+            case "RouterTrackPaymentV2":
+                try {
+                    history.putPayment(LightningOuterClass.Payment.parseFrom(bytes));
+                } catch (Exception e) {
+                    Log.e(TAG, "Error indexing payment", e);
+                }
+                break;
+        }
+    }
+
+    // Opens the index, fetches what was added since the checkpoints and follows new invoices
+    synchronized WritableMap open(RCTDeviceEventEmitter emitter) throws Exception {
+        this.emitter = emitter;
+
+        if (invoices == null) {
+            invoices = new LndRecordLog(new File(directory, "invoices.log"));
+            payments = new LndRecordLog(new File(directory, "payments.log"));
+        }
+
+        // Invoices still open at the last sync may have settled since, JS resumes from here
+        long invoiceIndexOffset = invoices.resumeIndex();
+        int invoiceCount = syncInvoices();
+        int paymentCount = syncPayments();
+
+        if (!subscribed) {
+            byte[] request = LightningOuterClass.InvoiceSubscription.newBuilder()
+                    .setAddIndex(invoices.lastIndex())
+                    .setSettleIndex(invoices.lastSettleIndex())
+                    .build()
+                    .toByteArray();
+
+            Lndmobile.subscribeInvoices(request, this);
+            subscribed = true;
+        }
+
+        Log.i(TAG, "Fetched " + invoiceCount + " invoices and " + paymentCount + " payments");
+
+        WritableMap params = snapshot();
+        params.putDouble("invoiceIndexOffset", invoiceIndexOffset);
+        params.putInt("fetchedInvoices", invoiceCount);
+        params.putInt("fetchedPayments", paymentCount);
+        return params;
+    }
+
+    // Fetches payments from the first one still in flight
+    synchronized int syncPayments() throws Exception {
+        long indexOffset = log(PAYMENTS).resumeIndex();
+        int count = 0;
+
+        while (true) {
+            byte[] request = LightningOuterClass.ListPaymentsRequest.newBuilder()
+                    .setIncludeIncomplete(true)
+                    .setIndexOffset(indexOffset)
+                    .setMaxPayments(SYNC_PAGE_SIZE)
+                    .build()
+                    .toByteArray();
+            LightningOuterClass.ListPaymentsResponse response = LightningOuterClass.ListPaymentsResponse.parseFrom(call(Lndmobile::listPayments, request));
+
+            for (LightningOuterClass.Payment payment : response.getPaymentsList()) {
+                putPayment(payment);
+            }
+
+            count += response.getPaymentsCount();
+
+            if (response.getPaymentsCount() < SYNC_PAGE_SIZE) {
+                return count;
+            }
+
+            indexOffset = response.getLastIndexOffset();
+        }
+    }
+
+    // Encodes the page as a ListInvoiceResponse or ListPaymentsResponse, so JS decodes it like the lnd response
+    byte[] page(String kind, long indexOffset, int limit, boolean reversed) throws IOException {
+        LndRecordLog log = log(kind);
+        List<LndRecordLog.Record> records = log.page(indexOffset, limit, reversed);
+        boolean isInvoices = INVOICES.equals(kind);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CodedOutputStream outputStream = CodedOutputStream.newInstance(bytes);
+
+        for (LndRecordLog.Record record : records) {
+            outputStream.writeByteArray(1, record.data);
+        }
+
+        if (!records.isEmpty()) {
+            long first = records.get(0).index;
+            long last = records.get(records.size() - 1).index;
+            outputStream.writeUInt64(isInvoices ? 3 : 2, first);
+            outputStream.writeUInt64(isInvoices ? 2 : 3, last);
+        }
+
+        outputStream.flush();
+        return bytes.toByteArray();
+    }
+
+    synchronized WritableMap snapshot() {
+        WritableMap params = Arguments.createMap();
+
+        if (invoices != null) {
+            params.putInt("invoices", invoices.size());
+            params.putDouble("addIndex", invoices.lastIndex());
+            params.putDouble("settleIndex", invoices.lastSettleIndex());
+            params.putInt("payments", payments.size());
+            params.putDouble("indexOffset", payments.resumeIndex());
+        }
+
+        return params;
+    }
+
+    @Override
+    public void onError(Exception e) {
+        // The subscription ends with lnd, the next open subscribes again
+        Log.i(TAG, "Invoice subscription ended: " + e.getLocalizedMessage());
+
+        synchronized (this) {
+            subscribed = false;
+        }
+    }
+
+    @Override
+    public void onResponse(byte[] bytes) {
+        LndResponseCache.onStreamMessage("SubscribeInvoices", bytes);
+
+        try {
+            byte[] data = putInvoice(LightningOuterClass.Invoice.parseFrom(bytes));
+
+            if (data != null && emitter != null) {
+                WritableMap params = Arguments.createMap();
+                params.putString("kind", INVOICES);
+                LndBuffers.putData(params, data);
+                emitter.emit(eventName, params);
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error indexing invoice", e);
+        }
+    }
+
+    // Fetches invoices from the first one still open, lnd only follows settlements after a non-zero settle index
+    private int syncInvoices() throws Exception {
+        long indexOffset = invoices.resumeIndex();
+        int count = 0;
+
+        while (true) {
+            byte[] request = LightningOuterClass.ListInvoiceRequest.newBuilder()
+                    .setIndexOffset(indexOffset)
+                    .setNumMaxInvoices(SYNC_PAGE_SIZE)
+                    .build()
+                    .toByteArray();
+            LightningOuterClass.ListInvoiceResponse response = LightningOuterClass.ListInvoiceResponse.parseFrom(call(Lndmobile::listInvoices, request));
+
+            for (LightningOuterClass.Invoice invoice : response.getInvoicesList()) {
+                putInvoice(invoice);
+            }
+
+            count += response.getInvoicesCount();
+
+            if (response.getInvoicesCount() < SYNC_PAGE_SIZE) {
+                return count;
+            }
+
+            indexOffset = response.getLastIndexOffset();
+        }
+    }
+
+    // Stores the invoice without its HTLCs, route hints and features, returns null if unchanged.
+    // Open invoices are fetched again on the next sync.
+    private byte[] putInvoice(LightningOuterClass.Invoice invoice) throws IOException {
+        byte[] data = invoice.toBuilder()
+                .clearHtlcs()
+                .clearRouteHints()
+                .clearFeatures()
+                .build()
+                .toByteArray();
+        String hash = toHex(invoice.getRHash().toByteArray());
+        LightningOuterClass.Invoice.InvoiceState state = invoice.getState();
+        boolean pending = state == LightningOuterClass.Invoice.InvoiceState.OPEN || state == LightningOuterClass.Invoice.InvoiceState.ACCEPTED;
+        boolean stored = invoices.put(new LndRecordLog.Record(hash, invoice.getAddIndex(), invoice.getSettleIndex(), pending, data));
+
+        return stored ? data : null;
+    }
+
+    // Stores the payment without its HTLCs, payments in flight are fetched again on the next sync
+    private void putPayment(LightningOuterClass.Payment payment) throws IOException {
+        if (payment.getPaymentIndex() == 0) {
+            return;
+        }
+
+        byte[] data = payment.toBuilder()
+                .clearHtlcs()
+                .build()
+                .toByteArray();
+        boolean pending = payment.getStatus() == LightningOuterClass.Payment.PaymentStatus.IN_FLIGHT;
+        payments.put(new LndRecordLog.Record(payment.getPaymentHash(), payment.getPaymentIndex(), 0, pending, data));
+    }
+
+    private LndRecordLog log(String kind) {
+        LndRecordLog log = INVOICES.equals(kind) ? invoices : PAYMENTS.equals(kind) ? payments : null;
+
+        if (log == null) {
+            throw new IllegalStateException(invoices == null ? "history not open" : "unknown history: " + kind);
+        }
+
+        return log;
+    }
+
+    private static byte[] call(LndSyncMethod method, byte[] request) throws Exception {
+        CompletableFuture<byte[]> future = new CompletableFuture<>();
+
+        method.invoke(request, new Callback() {
+            @Override
+            public void onError(Exception e) {
+                future.completeExceptionally(e);
+            }
+
+            @Override
+            public void onResponse(byte[] bytes) {
+                future.complete(bytes != null ? bytes : new byte[0]);
+            }
+        });
+
+        return future.get(CALL_TIMEOUT, TimeUnit.SECONDS);
+    }
+
+    private static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0xf];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0xf];
+        }
+
+        return new String(chars);
+    }
+}
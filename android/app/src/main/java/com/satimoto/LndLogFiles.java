@@ -0,0 +1,188 @@
+package com.satimoto;
+
+import android.util.Log;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps the logs of previous LND runs, and searches or exports every log in
+ * the log directory including the gzipped files rotated by lnd itself.
+ */
+public class LndLogFiles {
+    private static final String TAG = "LndLogFiles";
+    private static final int PREVIOUS_LOGS = 3;
+    private static final int COPY_SIZE = 64 * 1024;
+    private static final int MAX_LINE_LENGTH = 16 * 1024;
+
+    // Moves lnd.log to lnd.1.log, shifting older runs up and dropping the oldest
+    static void rotate(String logPath) {
+        File log = new File(logPath);
+
+        if (!log.exists()) {
+            return;
+        }
+
+        new File(previousPath(logPath, PREVIOUS_LOGS)).delete();
+
+        for (int i = PREVIOUS_LOGS - 1; i > 0; i--) {
+            File previous = new File(previousPath(logPath, i));
+
+            if (previous.exists() && !previous.renameTo(new File(previousPath(logPath, i + 1)))) {
+                Log.e(TAG, "Error rotating log: " + previous);
+            }
+        }
+
+        if (!log.renameTo(new File(previousPath(logPath, 1)))) {
+            Log.e(TAG, "Error rotating log, deleting: " + logPath);
+            log.delete();
+        }
+    }
+
+    // Log files oldest first
+    static List<File> list(String logPath) {
+        File[] files = new File(logPath).getParentFile().listFiles((dir, name) -> name.startsWith("lnd.") && name.contains(".log"));
+
+        if (files == null) {
+            return new ArrayList<>();
+        }
+
+        Arrays.sort(files, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+        return Arrays.asList(files);
+    }
+
+    // Returns the most recent maxResults matching lines
+    static WritableArray search(String logPath, Pattern pattern, int maxResults) throws IOException {
+        ArrayDeque<WritableMap> results = new ArrayDeque<>();
+        Matcher matcher = pattern.matcher("");
+
+        for (File file : list(logPath)) {
+            if (file.getName().endsWith(".gz")) {
+                searchCompressed(file, matcher, maxResults, results);
+            } else {
+                searchMapped(file, matcher, maxResults, results);
+            }
+        }
+
+        WritableArray params = Arguments.createArray();
+
+        for (WritableMap result : results) {
+            params.pushMap(result);
+        }
+
+        return params;
+    }
+
+    // Concatenates every log oldest first into a single gzip file
+    static void export(String logPath, File exportFile) throws IOException {
+        byte[] buffer = new byte[COPY_SIZE];
+
+        try (OutputStream outputStream = new GZIPOutputStream(new FileOutputStream(exportFile), COPY_SIZE)) {
+            byte last = '\n';
+
+            for (File file : list(logPath)) {
+                String header = (last != '\n' ? "\n" : "") + "==> " + file.getName() + " <==\n";
+                outputStream.write(header.getBytes(StandardCharsets.UTF_8));
+                last = '\n';
+
+                try (InputStream inputStream = open(file)) {
+                    int read;
+
+                    while ((read = inputStream.read(buffer)) > 0) {
+                        outputStream.write(buffer, 0, read);
+                        last = buffer[read - 1];
+                    }
+                }
+            }
+        }
+    }
+
+    private static String previousPath(String logPath, int index) {
+        return logPath.substring(0, logPath.length() - ".log".length()) + "." + index + ".log";
+    }
+
+    private static InputStream open(File file) throws IOException {
+        InputStream inputStream = new FileInputStream(file);
+        return file.getName().endsWith(".gz") ? new GZIPInputStream(inputStream, COPY_SIZE) : inputStream;
+    }
+
+    private static void searchMapped(File file, Matcher matcher, int maxResults, ArrayDeque<WritableMap> results) throws IOException {
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r")) {
+            FileChannel channel = randomAccessFile.getChannel();
+            long size = channel.size();
+
+            if (size == 0) {
+                return;
+            }
+
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            byte[] line = new byte[MAX_LINE_LENGTH];
+            int length = 0;
+            int number = 1;
+
+            while (mapped.hasRemaining()) {
+                byte b = mapped.get();
+
+                if (b == '\n') {
+                    addMatch(file, number++, new String(line, 0, length, StandardCharsets.UTF_8), matcher, maxResults, results);
+                    length = 0;
+                } else if (length < line.length) {
+                    line[length++] = b;
+                }
+            }
+
+            if (length > 0) {
+                addMatch(file, number, new String(line, 0, length, StandardCharsets.UTF_8), matcher, maxResults, results);
+            }
+        }
+    }
+
+    private static void searchCompressed(File file, Matcher matcher, int maxResults, ArrayDeque<WritableMap> results) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(open(file), StandardCharsets.UTF_8))) {
+            String line;
+            int number = 1;
+
+            while ((line = reader.readLine()) != null) {
+                addMatch(file, number++, line, matcher, maxResults, results);
+            }
+        }
+    }
+
+    private static void addMatch(File file, int number, String line, Matcher matcher, int maxResults, ArrayDeque<WritableMap> results) {
+        if (!matcher.reset(line).find()) {
+            return;
+        }
+
+        WritableMap params = Arguments.createMap();
+        params.putString("file", file.getName());
+        params.putInt("line", number);
+        params.putString("text", line);
+        results.addLast(params);
+
+        if (results.size() > maxResults) {
+            results.removeFirst();
+        }
+    }
+}
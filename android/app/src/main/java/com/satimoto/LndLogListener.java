@@ -0,0 +1,7 @@
+package com.satimoto;
+
+import java.util.List;
+
+interface LndLogListener {
+    void onLogLines(List<String> lines);
+}
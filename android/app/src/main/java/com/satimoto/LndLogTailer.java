@@ -0,0 +1,300 @@
+package com.satimoto;
+
+import android.system.ErrnoException;
+import android.system.Os;
+import android.util.Log;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Tails lnd.log from a tracked offset, reading only new bytes and reopening
+ * the file when it is rotated or truncated. Lines below the level threshold
+ * are dropped, the last lines are kept in a ring buffer and new lines are
+ * handed to the listener in batches at most once per interval.
+ */
+public class LndLogTailer {
+    private static final String TAG = "LndLogTailer";
+    private static final String[] LEVELS = {"TRC", "DBG", "INF", "WRN", "ERR", "CRT"};
+    private static final int READ_SIZE = 64 * 1024;
+    private static final int MAX_LINE_LENGTH = 16 * 1024;
+
+    private final String path;
+    private final LndLogListener listener;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(
+            runnable -> new Thread(runnable, "lnd-log"));
+    private final AtomicBoolean readScheduled = new AtomicBoolean();
+
+    // Only touched on the executor thread
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(READ_SIZE);
+    private final ByteArrayOutputStream partial = new ByteArrayOutputStream();
+    private List<String> pending = new ArrayList<>();
+    private FileInputStream inputStream;
+    private FileChannel channel;
+    private long inode;
+    private long position;
+    private int lastLevel = 2;
+
+    private final ArrayDeque<String> recent = new ArrayDeque<>();
+    private ScheduledFuture<?> flushFuture;
+
+    private volatile int minLevel = 2;
+    private volatile int bufferSize = 500;
+    private volatile int maxBatchSize = 200;
+    private volatile long dropped;
+
+    LndLogTailer(String path, LndLogListener listener) {
+        this.path = path;
+        this.listener = listener;
+    }
+
+    static int parseLevel(String level) {
+        String upper = level.toUpperCase(Locale.ROOT);
+
+        for (int i = 0; i < LEVELS.length && !upper.isEmpty(); i++) {
+            if (LEVELS[i].equals(upper) || LEVELS[i].charAt(0) == upper.charAt(0)) {
+                return i;
+            }
+        }
+
+        throw new IllegalArgumentException("Unknown log level: " + level);
+    }
+
+    void setMinLevel(String level) {
+        minLevel = parseLevel(level);
+    }
+
+    void setBufferSize(int size) {
+        bufferSize = Math.max(1, size);
+
+        synchronized (recent) {
+            while (recent.size() > bufferSize) {
+                recent.removeFirst();
+            }
+        }
+    }
+
+    void setMaxBatchSize(int size) {
+        maxBatchSize = Math.max(1, size);
+    }
+
+    synchronized void start(long intervalMs) {
+        if (flushFuture != null) {
+            flushFuture.cancel(false);
+        }
+
+        flushFuture = executor.scheduleWithFixedDelay(this::flush, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        onModified();
+    }
+
+    // Safe to call from any thread, reads are coalesced onto the executor
+    void onModified() {
+        if (readScheduled.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                readScheduled.set(false);
+                read();
+            });
+        }
+    }
+
+    List<String> getRecent() {
+        synchronized (recent) {
+            return new ArrayList<>(recent);
+        }
+    }
+
+    long getDropped() {
+        return dropped;
+    }
+
+    private void read() {
+        try {
+            if (!ensureOpen()) {
+                return;
+            }
+
+            if (channel.size() < position) {
+                Log.i(TAG, "Log truncated, reading from start");
+                position = 0;
+                partial.reset();
+            }
+
+            readAvailable();
+        } catch (IOException e) {
+            Log.e(TAG, "Error reading log: " + path, e);
+            close();
+        }
+    }
+
+    // Opens the log, or reopens it when the path now points at a new file
+    private boolean ensureOpen() throws IOException {
+        long currentInode = inodeOf(path);
+
+        if (currentInode < 0) {
+            // Rotated away and not yet recreated, finish reading the old file
+            return channel != null;
+        }
+
+        if (channel != null && currentInode != inode) {
+            Log.i(TAG, "Log rotated, reopening: " + path);
+            readAvailable();
+            close();
+        }
+
+        if (channel == null) {
+            if (!new File(path).exists()) {
+                return false;
+            }
+
+            // Take the inode from the open file in case it was rotated again since the stat
+            inputStream = new FileInputStream(path);
+            channel = inputStream.getChannel();
+            inode = inodeOf(inputStream);
+            position = 0;
+            partial.reset();
+        }
+
+        return true;
+    }
+
+    // The inode of the file at the path, or -1 if there is none
+    long inodeOf(String path) {
+        try {
+            return Os.stat(path).st_ino;
+        } catch (ErrnoException e) {
+            return -1;
+        }
+    }
+
+    long inodeOf(FileInputStream inputStream) throws IOException {
+        try {
+            return Os.fstat(inputStream.getFD()).st_ino;
+        } catch (ErrnoException e) {
+            throw new IOException("Could not stat log", e);
+        }
+    }
+
+    private void readAvailable() throws IOException {
+        long size = channel.size();
+
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+
+            if (read <= 0) {
+                break;
+            }
+
+            position += read;
+            buffer.flip();
+            splitLines();
+        }
+    }
+
+    private void close() {
+        try {
+            if (inputStream != null) {
+                inputStream.close();
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Error closing log: " + path, e);
+        }
+
+        inputStream = null;
+        channel = null;
+    }
+
+    private void splitLines() {
+        while (buffer.hasRemaining()) {
+            byte b = buffer.get();
+
+            if (b == '\n') {
+                addLine(new String(partial.toByteArray(), StandardCharsets.UTF_8));
+                partial.reset();
+            } else if (partial.size() < MAX_LINE_LENGTH) {
+                partial.write(b);
+            }
+        }
+    }
+
+    private void addLine(String line) {
+        if (line.isEmpty()) {
+            return;
+        }
+
+        int level = levelOf(line);
+
+        if (level < 0) {
+            // Continuation lines such as stack traces share the level of their entry
+            level = lastLevel;
+        } else {
+            lastLevel = level;
+        }
+
+        if (level < minLevel) {
+            return;
+        }
+
+        synchronized (recent) {
+            recent.addLast(line);
+
+            while (recent.size() > bufferSize) {
+                recent.removeFirst();
+            }
+        }
+
+        pending.add(line);
+    }
+
+    // Lines look like "2023-01-02 15:04:05.000 [INF] LTND: ..."
+    private static int levelOf(String line) {
+        int start = line.indexOf('[');
+
+        if (start < 0 || start > 32 || line.length() < start + 5 || line.charAt(start + 4) != ']') {
+            return -1;
+        }
+
+        for (int i = 0; i < LEVELS.length; i++) {
+            if (line.startsWith(LEVELS[i], start + 1)) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        List<String> lines = pending;
+        pending = new ArrayList<>();
+
+        if (lines.size() > maxBatchSize) {
+            // Keep the newest lines, older ones stay available in the ring buffer
+            dropped += lines.size() - maxBatchSize;
+            lines = lines.subList(lines.size() - maxBatchSize, lines.size());
+        }
+
+        try {
+            listener.onLogLines(lines);
+        } catch (Exception e) {
+            Log.e(TAG, "Error emitting log lines", e);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.satimoto;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-method call and stream counters, used to find which LND calls dominate
+ * cold start and payment latency on real devices.
+ */
+public class LndMetrics {
+    private static final Map<String, LndMetrics> metrics = new ConcurrentHashMap<>();
+
+    final String method;
+
+    private final LndHistogram latency = new LndHistogram();
+
+    private long calls;
+    private long inFlight;
+    private long shared;
+    private long errors;
+    private long requestBytes;
+    private long responseBytes;
+
+    private long streams;
+    private long openStreams;
+    private long messages;
+    private long messageBytes;
+    private long firstMessageAt;
+    private long lastMessageAt;
+    private long currentSecond;
+    private long currentSecondMessages;
+    private long currentSecondBytes;
+    private long maxMessagesPerSecond;
+    private long maxBytesPerSecond;
+
+    private LndMetrics(String method) {
+        this.method = method;
+    }
+
+    static LndMetrics get(String method) {
+        return metrics.computeIfAbsent(method, LndMetrics::new);
+    }
+
+    // Returns the start time to pass to end()
+    synchronized long begin() {
+        calls++;
+        inFlight++;
+        return System.nanoTime();
+    }
+
+    // Counts a call answered by an identical call already in flight
+    synchronized void recordShared() {
+        shared++;
+    }
+
+    synchronized void recordRequest(int bytes) {
+        requestBytes += bytes;
+    }
+
+    synchronized void end(long startedAt, int bytes, boolean error) {
+        inFlight = Math.max(0, inFlight - 1);
+        responseBytes += bytes;
+        latency.record((System.nanoTime() - startedAt) / 1000);
+
+        if (error) {
+            errors++;
+        }
+    }
+
+    synchronized void recordStreamOpen() {
+        streams++;
+        openStreams++;
+    }
+
+    synchronized void recordStreamClose(boolean error) {
+        openStreams = Math.max(0, openStreams - 1);
+
+        if (error) {
+            errors++;
+        }
+    }
+
+    synchronized void recordStreamMessage(int bytes) {
+        long now = System.currentTimeMillis();
+        long second = now / 1000;
+
+        if (second != currentSecond) {
+            currentSecond = second;
+            currentSecondMessages = 0;
+            currentSecondBytes = 0;
+        }
+
+        if (messages == 0) {
+            firstMessageAt = now;
+        }
+
+        messages++;
+        messageBytes += bytes;
+        lastMessageAt = now;
+        currentSecondMessages++;
+        currentSecondBytes += bytes;
+        maxMessagesPerSecond = Math.max(maxMessagesPerSecond, currentSecondMessages);
+        maxBytesPerSecond = Math.max(maxBytesPerSecond, currentSecondBytes);
+    }
+
+    synchronized WritableMap toWritableMap() {
+        WritableMap params = Arguments.createMap();
+
+        if (calls > 0 || shared > 0) {
+            params.putDouble("calls", calls);
+            params.putDouble("inFlight", inFlight);
+            params.putDouble("shared", shared);
+            params.putDouble("requestBytes", requestBytes);
+            params.putDouble("responseBytes", responseBytes);
+            params.putMap("latency", latency.toWritableMap());
+        }
+
+        if (streams > 0) {
+            // Rates are averaged over the time between the first and last message
+            double seconds = Math.max(1, (lastMessageAt - firstMessageAt) / 1000.0);
+
+            params.putDouble("streams", streams);
+            params.putDouble("openStreams", openStreams);
+            params.putDouble("messages", messages);
+            params.putDouble("messageBytes", messageBytes);
+            params.putDouble("messagesPerSecond", messages / seconds);
+            params.putDouble("bytesPerSecond", messageBytes / seconds);
+            params.putDouble("maxMessagesPerSecond", maxMessagesPerSecond);
+            params.putDouble("maxBytesPerSecond", maxBytesPerSecond);
+        }
+
+        params.putDouble("errors", errors);
+        return params;
+    }
+
+    static WritableMap snapshot() {
+        WritableMap params = Arguments.createMap();
+
+        for (Map.Entry<String, LndMetrics> entry : metrics.entrySet()) {
+            params.putMap(entry.getKey(), entry.getValue().toWritableMap());
+        }
+
+        return params;
+    }
+}
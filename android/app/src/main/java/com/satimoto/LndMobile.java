@@ -3,58 +3,42 @@ package com.satimoto;
 import android.util.Base64;
 import android.util.Log;
 
+import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReactContextBaseJavaModule;
 import com.facebook.react.bridge.ReactMethod;
 import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
 import com.facebook.react.bridge.ReadableType;
+import com.facebook.react.bridge.WritableMap;
 import com.facebook.react.modules.core.DeviceEventManagerModule.RCTDeviceEventEmitter;
 import com.google.protobuf.ByteString;
 
-import java.io.File;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Locale;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import lndmobile.Lndmobile;
 import lndmobile.SendStream;
 
-public class LndMobile extends ReactContextBaseJavaModule {
+public class LndMobile extends ReactContextBaseJavaModule implements LndStreamListener, LndCursorListener {
 
     private final String TAG = "LndMobile";
 
-    private Map<String, SendStream> activeStreams = new HashMap<>();
-    private Map<String, Method> syncMethods = new HashMap<>();
-    private Map<String, Method> streamMethods = new HashMap<>();
-
-    private static boolean isReceiveStream(Method m) {
-        return m.toString().contains("RecvStream");
-    }
-
-    private static boolean isSendStream(Method m) {
-        return m.toString().contains("SendStream");
-    }
-
-    private static boolean isStream(Method m) {
-        return isReceiveStream(m) || isSendStream(m);
-    }
+    private final AtomicLong nextStreamId = new AtomicLong();
+    private final LndStreamRegistry streams = new LndStreamRegistry();
+    private LndChannelAcceptor channelAcceptor;
+    private final AtomicLong nextCursorId = new AtomicLong();
+    private final Map<Long, LndCursor> cursors = new ConcurrentHashMap<>();
 
     public LndMobile(ReactApplicationContext reactContext) {
         super(reactContext);
-
-        Method[] methods = Lndmobile.class.getDeclaredMethods();
-        for (Method m : methods) {
-            String name = m.getName();
-            name = name.substring(0, 1).toUpperCase() + name.substring(1);
-            if (isStream(m)) {
-                streamMethods.put(name, m);
-            } else {
-                syncMethods.put(name, m);
-            }
-        }
     }
 
     @Override
@@ -62,6 +46,19 @@ public class LndMobile extends ReactContextBaseJavaModule {
         return TAG;
     }
 
+    @Override
+    public void initialize() {
+        super.initialize();
+        LndBuffers.install(getReactApplicationContext());
+    }
+
+    @Override
+    public void invalidate() {
+        streams.closeAll();
+        LndBuffers.uninstall();
+        super.invalidate();
+    }
+
     @Override
     public Map<String, Object> getConstants() {
         final Map<String, Object> constants = new HashMap<>();
@@ -76,24 +73,14 @@ public class LndMobile extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void start(final Promise promise) {
-        LndUtils lndUtils = new LndUtils(getReactApplicationContext());
-        lndUtils.deleteLog();
-
-        File confPath = new File(lndUtils.confPath);
-
-        if (!confPath.exists()) {
-            try {
-                lndUtils.writeDefaultConf();
-            } catch (Exception e) {
-                Log.e(TAG, "Could not write to " + lndUtils.confPath, e);
-                promise.reject("Could not write to : " + lndUtils.confPath, e);
+        LndStartup.get(getReactApplicationContext()).attach().whenComplete((response, e) -> {
+            if (e != null) {
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                promise.reject("error", cause.getLocalizedMessage(), cause);
+            } else {
+                promise.resolve(response);
             }
-        }
-
-        String args = "--lnddir=" + lndUtils.lndPath + " --configfile=" + lndUtils.confPath;
-        Log.i(TAG, "Starting LND with args " + args);
-        Runnable startLnd = () -> Lndmobile.start(args, new StartLndCallback(promise));
-        new Thread(startLnd).start();
+        });
     }
 
     @ReactMethod
@@ -133,7 +120,29 @@ public class LndMobile extends ReactContextBaseJavaModule {
             initWallet.setRecoveryWindow(recoveryWindow);
         }
 
-        Lndmobile.initWallet(initWallet.build().toByteArray(), new LndCallback(promise));
+        LndMetrics metrics = LndMetrics.get("InitWallet");
+        long startedAt = metrics.begin();
+        byte[] bytes = initWallet.build().toByteArray();
+        metrics.recordRequest(bytes.length);
+
+        LndExecutor.execute("InitWallet", promise, () -> Lndmobile.initWallet(bytes, new LndCallback(promise, metrics, startedAt)));
+    }
+
+    @ReactMethod
+    public void startAndUnlock(String password, final Promise promise) {
+        byte[] bytes = lnrpc.Walletunlocker.UnlockWalletRequest.newBuilder()
+                .setWalletPassword(ByteString.copyFromUtf8(password))
+                .build()
+                .toByteArray();
+
+        LndStartup.get(getReactApplicationContext()).startAndUnlock(bytes).whenComplete((timings, e) -> {
+            if (e != null) {
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                promise.reject("error", cause.getLocalizedMessage(), cause);
+            } else {
+                promise.resolve(timings);
+            }
+        });
     }
 
     @ReactMethod
@@ -141,62 +150,266 @@ public class LndMobile extends ReactContextBaseJavaModule {
         lnrpc.Walletunlocker.UnlockWalletRequest.Builder unlockWallet = lnrpc.Walletunlocker.UnlockWalletRequest.newBuilder();
         unlockWallet.setWalletPassword(ByteString.copyFromUtf8(password));
 
-        Lndmobile.unlockWallet(unlockWallet.build().toByteArray(), new LndCallback(promise));
+        LndMetrics metrics = LndMetrics.get("UnlockWallet");
+        long startedAt = metrics.begin();
+        byte[] bytes = unlockWallet.build().toByteArray();
+        metrics.recordRequest(bytes.length);
+
+        LndExecutor.execute("UnlockWallet", promise, () -> Lndmobile.unlockWallet(bytes, new LndCallback(promise, metrics, startedAt)));
     }
 
     @ReactMethod
     public void stop(final Promise promise) {
         lnrpc.LightningOuterClass.StopRequest.Builder builder = lnrpc.LightningOuterClass.StopRequest.newBuilder();
 
-        Lndmobile.stopDaemon(builder.build().toByteArray(), new LndCallback(promise));
+        LndMetrics metrics = LndMetrics.get("StopDaemon");
+        long startedAt = metrics.begin();
+
+        LndExecutor.execute("StopDaemon", promise, () -> Lndmobile.stopDaemon(builder.build().toByteArray(), new LndCallback(promise, metrics, startedAt)));
     }
 
     @ReactMethod
     public void sendCommand(String method, String msg, final Promise promise) {
-        Method syncMethod = syncMethods.get(method);
+        dispatchCommand(method, msg, promise);
+    }
+
+    @ReactMethod
+    public void sendCommandBatch(ReadableArray commands, final Promise promise) {
+        if (commands.size() == 0) {
+            promise.resolve(Arguments.createArray());
+            return;
+        }
+
+        LndBatch batch = new LndBatch(commands.size(), promise);
+
+        for (int i = 0; i < commands.size(); i++) {
+            ReadableMap command = commands.getMap(i);
+            dispatchCommand(command.getString("method"), command.getString("msg"), batch.itemPromise(i));
+        }
+    }
+
+    private void dispatchCommand(String method, String msg, final Promise promise) {
+        LndSyncMethod syncMethod = LndMobileDispatch.syncMethods.get(method);
+        if (syncMethod == null) {
+            promise.reject(TAG, "method not found: " + method);
+            return;
+        }
+
+        LndCallback callback;
+        LndMetrics metrics = LndMetrics.get(method);
+        String requestKey = LndResponseCache.key(method, msg);
+
+        if (LndResponseCache.isCached(method)) {
+            byte[] cached = LndResponseCache.get(method, requestKey);
+
+            if (cached != null) {
+                WritableMap params = Arguments.createMap();
+                LndBuffers.putData(params, cached);
+                promise.resolve(params);
+                return;
+            }
+        }
+
+        boolean shareable = LndSingleFlight.isShareable(method);
+
+        if (shareable && LndSingleFlight.join(requestKey, promise)) {
+            metrics.recordShared();
+            return;
+        }
+
+        if (LndResponseCache.isCached(method)) {
+            callback = new LndCachedCallback(promise, metrics, metrics.begin(), method, requestKey);
+        } else {
+            callback = new LndCallback(promise, metrics, metrics.begin());
+        }
+
+        if (shareable) {
+            callback.flightKey = requestKey;
+        }
+
+        boolean queued = LndExecutor.execute(method, promise, () -> {
+            byte[] bytes = Base64.decode(msg, Base64.NO_WRAP);
+            metrics.recordRequest(bytes.length);
+
+            try {
+                syncMethod.invoke(bytes, callback);
+            } catch (Exception e) {
+                e.printStackTrace();
+                callback.onError(e);
+            }
+        });
+
+        if (!queued) {
+            String message = LndExecutor.queueFullMessage(LndExecutor.laneFor(method));
+            callback.recordEnd(0, true);
+
+            for (Promise follower : callback.completeFlight()) {
+                follower.reject("error", message);
+            }
+        }
+    }
+
+    @ReactMethod
+    public void sendCommandProjected(String method, String msg, ReadableArray fieldMask, final Promise promise) {
+        LndSyncMethod syncMethod = LndMobileDispatch.syncMethods.get(method);
         if (syncMethod == null) {
             promise.reject(TAG, "method not found: " + method);
             return;
         }
 
+        LndProjection projection;
+
+        try {
+            projection = LndProjection.get(method, fieldMask);
+        } catch (Exception e) {
+            Log.e(TAG, "Invalid field mask for " + method, e);
+            promise.reject(TAG, e);
+            return;
+        }
+
+        LndMetrics metrics = LndMetrics.get(method);
+        long startedAt = metrics.begin();
+
+        boolean queued = LndExecutor.execute(method, promise, () -> {
+            byte[] bytes = Base64.decode(msg, Base64.NO_WRAP);
+            LndCallback callback = new LndProjectedCallback(promise, metrics, startedAt, projection);
+            metrics.recordRequest(bytes.length);
+
+            try {
+                syncMethod.invoke(bytes, callback);
+            } catch (Exception e) {
+                e.printStackTrace();
+                callback.recordEnd(0, true);
+                promise.reject(TAG, e);
+            }
+        });
+
+        if (!queued) {
+            metrics.end(startedAt, 0, true);
+        }
+    }
+
+    @ReactMethod
+    public void openCursor(String method, String msg, double pageSize, ReadableArray fieldMask, final Promise promise) {
+        LndSyncMethod syncMethod = LndMobileDispatch.syncMethods.get(method);
+        if (syncMethod == null) {
+            promise.reject(TAG, "method not found: " + method);
+            return;
+        }
+
+        long cursorId = nextCursorId.incrementAndGet();
         byte[] bytes = Base64.decode(msg, Base64.NO_WRAP);
 
         try {
-            syncMethod.invoke(null, bytes, new LndCallback(promise));
-        } catch (IllegalAccessException | InvocationTargetException e) {
-            e.printStackTrace();
+            LndProjection projection = fieldMask != null ? LndProjection.get(method, fieldMask) : null;
+            cursors.put(cursorId, new LndCursor(cursorId, method, syncMethod, bytes, (long) pageSize, projection, this));
+        } catch (Exception e) {
+            Log.e(TAG, "Could not open cursor for " + method, e);
             promise.reject(TAG, e);
+            return;
         }
+
+        promise.resolve((double) cursorId);
     }
 
     @ReactMethod
-    public void sendStreamCommand(String method, String streamId, String msg) {
-        Method streamMethod = streamMethods.get(method);
+    public void nextPage(double cursorId, final Promise promise) {
+        LndCursor cursor = cursors.get((long) cursorId);
+        if (cursor == null) {
+            promise.reject(TAG, "cursor not found: " + (long) cursorId);
+            return;
+        }
 
-        if (streamMethod == null) {
+        LndExecutor.execute(cursor.method, promise, () -> cursor.nextPage(promise));
+    }
+
+    @ReactMethod
+    public void closeCursor(double cursorId) {
+        cursors.remove((long) cursorId);
+    }
+
+    @Override
+    public void onCursorClose(long cursorId) {
+        cursors.remove(cursorId);
+    }
+
+    @ReactMethod
+    public void sendStreamCommand(String method, String msg, ReadableMap options, final Promise promise) {
+        LndRecvStreamMethod recvStreamMethod = LndMobileDispatch.recvStreamMethods.get(method);
+        LndBiStreamMethod biStreamMethod = LndMobileDispatch.biStreamMethods.get(method);
+
+        if (recvStreamMethod == null && biStreamMethod == null) {
+            promise.reject(TAG, "method not found: " + method);
             return;
         }
 
+        long streamId = nextStreamId.incrementAndGet();
+
         RCTDeviceEventEmitter emitter = getReactApplicationContext()
                 .getJSModule(RCTDeviceEventEmitter.class);
-        LndRecvStream recvStream = new LndRecvStream(streamId, emitter);
+        LndRecvStream recvStream = new LndRecvStream(streamId, method, emitter, LndStreamOptions.fromReadableMap(options), this);
+        streams.register(recvStream);
 
-        try {
-            if (isSendStream(streamMethod)) {
-                Object sendStream = streamMethod.invoke(null, recvStream);
-                this.activeStreams.put(streamId, (SendStream) sendStream);
-            } else {
+        if (biStreamMethod == null && LndSharedStream.isShareable(method)) {
+            sendSharedStreamCommand(recvStreamMethod, method, msg, recvStream, promise);
+            return;
+        }
+
+        boolean queued = LndExecutor.execute(method, promise, () -> {
+            // Resolve before starting the stream so JS learns the id ahead of its first event
+            promise.resolve((double) streamId);
+
+            try {
+                if (biStreamMethod != null) {
+                    streams.attach(streamId, biStreamMethod.invoke(recvStream));
+                } else {
+                    byte[] bytes = Base64.decode(msg, Base64.NO_WRAP);
+                    recvStreamMethod.invoke(bytes, recvStream);
+                }
+            } catch (Exception e) {
+                e.printStackTrace();
+                recvStream.onError(e);
+            }
+        });
+
+        if (!queued) {
+            recvStream.close();
+            streams.onClosed(streamId);
+        }
+    }
+
+    // Subscribes to an identical running subscription, or starts one the next identical command can share
+    private void sendSharedStreamCommand(LndRecvStreamMethod recvStreamMethod, String method, String msg, LndRecvStream recvStream, final Promise promise) {
+        // An empty request only subscribes to new events, any other may ask lnd to replay history first
+        LndSharedStream upstream = LndSharedStream.subscribe(LndResponseCache.key(method, msg), method, !msg.isEmpty(), recvStream);
+
+        if (upstream == null) {
+            LndMetrics.get(method).recordShared();
+            promise.resolve((double) recvStream.streamId);
+            return;
+        }
+
+        boolean queued = LndExecutor.execute(method, promise, () -> {
+            promise.resolve((double) recvStream.streamId);
+
+            try {
                 byte[] bytes = Base64.decode(msg, Base64.NO_WRAP);
-                streamMethod.invoke(null, bytes, recvStream);
+                recvStreamMethod.invoke(bytes, upstream);
+            } catch (Exception e) {
+                e.printStackTrace();
+                upstream.onError(e);
             }
-        } catch (IllegalAccessException | InvocationTargetException e) {
-            e.printStackTrace();
+        });
+
+        if (!queued) {
+            recvStream.close();
+            upstream.onError(new Exception("stream not started"));
         }
     }
 
     @ReactMethod
-    public void sendStreamWrite(String streamId, String msg) {
-        SendStream stream = activeStreams.get(streamId);
+    public void sendStreamWrite(double streamId, String msg) {
+        SendStream stream = streams.sendStream((long) streamId);
         if (stream == null) {
             return;
         }
@@ -210,18 +423,160 @@ public class LndMobile extends ReactContextBaseJavaModule {
     }
 
     @ReactMethod
-    public void closeStream(String streamId) {
-        SendStream stream = activeStreams.get(streamId);
-        if (stream == null) {
+    public void closeStream(double streamId) {
+        streams.close((long) streamId);
+    }
+
+    @ReactMethod
+    public void ackStreamEvent(double streamId) {
+        LndRecvStream recvStream = streams.recvStream((long) streamId);
+        if (recvStream != null) {
+            recvStream.ack();
+        }
+    }
+
+    @Override
+    public void onStreamClose(long streamId) {
+        streams.onClosed(streamId);
+    }
+
+    @ReactMethod
+    public synchronized void startChannelAcceptor(ReadableArray rules, final Promise promise) {
+        List<LndChannelAcceptorRule> acceptorRules = LndChannelAcceptorRule.fromReadableArray(rules);
+
+        if (channelAcceptor != null && !channelAcceptor.isClosed()) {
+            channelAcceptor.setRules(acceptorRules);
+            promise.resolve(true);
             return;
         }
 
-        activeStreams.remove(streamId);
+        RCTDeviceEventEmitter emitter = getReactApplicationContext()
+                .getJSModule(RCTDeviceEventEmitter.class);
+        LndChannelAcceptor acceptor = new LndChannelAcceptor(emitter, acceptorRules);
+        channelAcceptor = acceptor;
 
-        try {
-            stream.stop();
-        } catch (Exception e) {
-            e.printStackTrace();
+        boolean queued = LndExecutor.execute("ChannelAcceptor", promise, () -> {
+            try {
+                acceptor.start();
+                promise.resolve(true);
+            } catch (Exception e) {
+                Log.e(TAG, "Error starting channel acceptor", e);
+                promise.reject("error", e.getLocalizedMessage(), e);
+            }
+        });
+
+        if (!queued) {
+            // Never started, so the next call has to start a new one
+            channelAcceptor = null;
+        }
+    }
+
+    @ReactMethod
+    public synchronized void setChannelAcceptorRules(ReadableArray rules) {
+        if (channelAcceptor != null) {
+            channelAcceptor.setRules(LndChannelAcceptorRule.fromReadableArray(rules));
         }
     }
+
+    @ReactMethod
+    public synchronized void stopChannelAcceptor() {
+        if (channelAcceptor != null) {
+            channelAcceptor.stop();
+            channelAcceptor = null;
+        }
+    }
+
+    @ReactMethod
+    public void openHistory(final Promise promise) {
+        RCTDeviceEventEmitter emitter = getReactApplicationContext()
+                .getJSModule(RCTDeviceEventEmitter.class);
+
+        LndHistory.execute(() -> {
+            try {
+                promise.resolve(LndHistory.get(getReactApplicationContext()).open(emitter));
+            } catch (Exception e) {
+                Log.e(TAG, "Error opening history", e);
+                promise.reject("error", e.getLocalizedMessage(), e);
+            }
+        });
+    }
+
+    @ReactMethod
+    public void syncPaymentHistory(final Promise promise) {
+        LndHistory.execute(() -> {
+            try {
+                promise.resolve(LndHistory.get(getReactApplicationContext()).syncPayments());
+            } catch (Exception e) {
+                Log.e(TAG, "Error syncing payment history", e);
+                promise.reject("error", e.getLocalizedMessage(), e);
+            }
+        });
+    }
+
+    @ReactMethod
+    public void queryHistory(String kind, double indexOffset, double limit, boolean reversed, final Promise promise) {
+        LndExecutor.execute(LndExecutor.Lane.LOW, promise, () -> {
+            try {
+                WritableMap params = Arguments.createMap();
+                LndBuffers.putData(params, LndHistory.get(getReactApplicationContext()).page(kind, (long) indexOffset, (int) limit, reversed));
+                promise.resolve(params);
+            } catch (Exception e) {
+                promise.reject("error", e.getLocalizedMessage(), e);
+            }
+        });
+    }
+
+    @ReactMethod
+    public void getStreamStats(final Promise promise) {
+        promise.resolve(LndStreamStats.snapshot());
+    }
+
+    @ReactMethod
+    public void getActiveStreams(final Promise promise) {
+        promise.resolve(streams.snapshot());
+    }
+
+    @ReactMethod
+    public void configureExecutor(ReadableMap options) {
+        for (LndExecutor.Lane lane : LndExecutor.Lane.values()) {
+            String key = lane.name().toLowerCase(Locale.ROOT);
+
+            if (options.hasKey(key)) {
+                LndExecutor.setThreads(lane, options.getInt(key));
+            }
+        }
+    }
+
+    @ReactMethod
+    public void configureResponseCache(ReadableMap ttls) {
+        LndResponseCache.configure(ttls);
+    }
+
+    @ReactMethod
+    public void getExecutorStats(final Promise promise) {
+        promise.resolve(LndExecutor.snapshot());
+    }
+
+    @ReactMethod
+    public void setEarlyStart(boolean enabled, final Promise promise) {
+        LndStartup.setEarlyStartEnabled(getReactApplicationContext(), enabled);
+        promise.resolve(enabled);
+    }
+
+    @ReactMethod
+    public void getStartupTimings(final Promise promise) {
+        promise.resolve(LndStartup.snapshot());
+    }
+
+    @ReactMethod
+    public void getMetrics(final Promise promise) {
+        WritableMap params = Arguments.createMap();
+        params.putMap("methods", LndMetrics.snapshot());
+        params.putMap("streams", LndStreamStats.snapshot());
+        params.putMap("activeStreams", streams.snapshot());
+        params.putMap("executor", LndExecutor.snapshot());
+        params.putMap("cache", LndResponseCache.snapshot());
+        params.putMap("startup", LndStartup.snapshot());
+        promise.resolve(params);
+    }
 }
@@ -0,0 +1,27 @@
+package com.satimoto;
+
+import com.facebook.react.bridge.Promise;
+
+public class LndProjectedCallback extends LndCallback {
+    LndProjection projection;
+
+    LndProjectedCallback(Promise promise, LndMetrics metrics, long startedAt, LndProjection projection) {
+        super(promise, metrics, startedAt);
+        this.projection = projection;
+    }
+
+    @Override
+    public void onResponse(byte[] bytes) {
+        byte[] projected;
+
+        try {
+            // gomobile delivers an empty response as null
+            projected = projection.project(bytes != null ? bytes : new byte[0]);
+        } catch (Exception e) {
+            onError(e);
+            return;
+        }
+
+        super.onResponse(projected);
+    }
+}
@@ -0,0 +1,156 @@
+package com.satimoto;
+
+import com.facebook.react.bridge.ReadableArray;
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.MessageLite;
+import com.google.protobuf.WireFormat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import lnrpc.LightningOuterClass;
+
+/**
+ * Prunes a LND response down to the fields of a field mask, keeping it a valid
+ * message of the same type so JS decodes it with the usual response class.
+ */
+public class LndProjection {
+    private static final Map<String, Class<?>> responseTypes = new HashMap<>();
+    private static final Map<String, LndProjection> projections = new ConcurrentHashMap<>();
+
+    static {
+        responseTypes.put("ClosedChannels", LightningOuterClass.ClosedChannelsResponse.class);
+        responseTypes.put("DescribeGraph", LightningOuterClass.ChannelGraph.class);
+        responseTypes.put("GetTransactions", LightningOuterClass.TransactionDetails.class);
+        responseTypes.put("ListChannels", LightningOuterClass.ListChannelsResponse.class);
+        responseTypes.put("ListInvoices", LightningOuterClass.ListInvoiceResponse.class);
+        responseTypes.put("ListPayments", LightningOuterClass.ListPaymentsResponse.class);
+    }
+
+    // Kept field numbers, a null projection keeps the whole field
+    private final Map<Integer, LndProjection> fields = new HashMap<>();
+
+    static LndProjection get(String method, ReadableArray fieldMask) throws ReflectiveOperationException {
+        Class<?> type = responseTypes.get(method);
+
+        if (type == null) {
+            throw new IllegalArgumentException("projection not supported: " + method);
+        }
+
+        List<String> paths = new ArrayList<>();
+
+        for (int i = 0; i < fieldMask.size(); i++) {
+            paths.add(fieldMask.getString(i));
+        }
+
+        String key = method + ":" + String.join(",", paths);
+        LndProjection projection = projections.get(key);
+
+        if (projection == null) {
+            projection = new LndProjection();
+
+            for (String path : paths) {
+                projection.addPath(type, path.split("\\."), 0);
+            }
+
+            projections.put(key, projection);
+        }
+
+        return projection;
+    }
+
+    byte[] project(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length);
+        CodedOutputStream output = CodedOutputStream.newInstance(out);
+        CodedInputStream input = CodedInputStream.newInstance(bytes);
+        int tag;
+
+        while ((tag = input.readTag()) != 0) {
+            int fieldNumber = WireFormat.getTagFieldNumber(tag);
+
+            if (!fields.containsKey(fieldNumber)) {
+                input.skipField(tag);
+                continue;
+            }
+
+            LndProjection nested = fields.get(fieldNumber);
+
+            if (nested != null && WireFormat.getTagWireType(tag) == WireFormat.WIRETYPE_LENGTH_DELIMITED) {
+                output.writeByteArray(fieldNumber, nested.project(input.readByteArray()));
+            } else {
+                input.skipField(tag, output);
+            }
+        }
+
+        output.flush();
+        return out.toByteArray();
+    }
+
+    private void addPath(Class<?> type, String[] names, int index) throws ReflectiveOperationException {
+        String name = names[index];
+        int fieldNumber = type.getField(toConstantName(name) + "_FIELD_NUMBER").getInt(null);
+
+        if (index == names.length - 1) {
+            fields.put(fieldNumber, null);
+            return;
+        }
+
+        if (fields.containsKey(fieldNumber) && fields.get(fieldNumber) == null) {
+            // The whole field is already kept
+            return;
+        }
+
+        Class<?> nestedType = messageType(type, name);
+
+        if (nestedType == null) {
+            throw new NoSuchFieldException(name + " is not a message field");
+        }
+
+        LndProjection nested = fields.get(fieldNumber);
+
+        if (nested == null) {
+            nested = new LndProjection();
+            fields.put(fieldNumber, nested);
+        }
+
+        nested.addPath(nestedType, names, index + 1);
+    }
+
+    private static Class<?> messageType(Class<?> type, String name) {
+        // Singular fields have get<Name>() and repeated fields get<Name>(int)
+        String getterName = "get" + toCamelName(name);
+
+        for (Method method : type.getMethods()) {
+            if (method.getName().equals(getterName) && MessageLite.class.isAssignableFrom(method.getReturnType())) {
+                return method.getReturnType();
+            }
+        }
+
+        return null;
+    }
+
+    private static String toConstantName(String name) {
+        // Accepts both proto (chan_id) and JS (chanId) field names
+        return name.replaceAll("([a-z0-9])([A-Z])", "$1_$2").toUpperCase(Locale.ROOT);
+    }
+
+    private static String toCamelName(String name) {
+        StringBuilder builder = new StringBuilder();
+
+        for (String part : toConstantName(name).toLowerCase(Locale.ROOT).split("_")) {
+            if (!part.isEmpty()) {
+                builder.append(Character.toUpperCase(part.charAt(0))).append(part.substring(1));
+            }
+        }
+
+        return builder.toString();
+    }
+}
@@ -0,0 +1,336 @@
+package com.satimoto;
+
+import android.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only file of records keyed by hash and ordered by their LND index.
+ * An update appends the record again, so the file is scanned on open, a torn
+ * last record is truncated and the file is compacted once superseded records
+ * outnumber the live ones. Only the keys, indexes and file offsets are kept
+ * in memory, record data is read from the file when a page is requested.
+ */
+public class LndRecordLog {
+    private static final String TAG = "LndRecordLog";
+    private static final int MIN_COMPACT_RECORDS = 256;
+    private static final int MAX_RECORD_SIZE = 1024 * 1024;
+
+    static class Record {
+        final String hash;
+        final long index;
+        final long settleIndex;
+        final boolean pending;
+        final byte[] data;
+
+        Record(String hash, long index, long settleIndex, boolean pending, byte[] data) {
+            this.hash = hash;
+            this.index = index;
+            this.settleIndex = settleIndex;
+            this.pending = pending;
+            this.data = data;
+        }
+    }
+
+    // A stored record without its data, which stays in the file
+    private static class Entry {
+        final String hash;
+        final long index;
+        final long settleIndex;
+        final boolean pending;
+        final long offset;
+        final int size;
+        final int dataLength;
+        final int dataChecksum;
+
+        Entry(Record record, long offset, int size) {
+            this.hash = record.hash;
+            this.index = record.index;
+            this.settleIndex = record.settleIndex;
+            this.pending = record.pending;
+            this.offset = offset;
+            this.size = size;
+            this.dataLength = record.data.length;
+            this.dataChecksum = checksum(record.data);
+        }
+
+        boolean matches(Record record) {
+            return index == record.index && settleIndex == record.settleIndex && pending == record.pending
+                    && dataLength == record.data.length && dataChecksum == checksum(record.data);
+        }
+    }
+
+    private final File file;
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final TreeMap<Long, Entry> indexed = new TreeMap<>();
+    private DataOutputStream outputStream;
+    private RandomAccessFile reader;
+    private long length;
+    private int written;
+    private long lastSettleIndex;
+
+    LndRecordLog(File file) throws IOException {
+        this.file = file;
+        file.getParentFile().mkdirs();
+        load();
+
+        if (written > MIN_COMPACT_RECORDS && written > entries.size() * 2) {
+            compact();
+        }
+
+        outputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)));
+        reader = new RandomAccessFile(file, "r");
+    }
+
+    // Returns false when the record is already stored unchanged
+    synchronized boolean put(Record record) throws IOException {
+        Entry existing = entries.get(record.hash);
+
+        if (existing != null && existing.matches(record)) {
+            return false;
+        }
+
+        int size = write(outputStream, record);
+        outputStream.flush();
+        index(new Entry(record, length, size));
+        length += size;
+        written++;
+        return true;
+    }
+
+    // Records after the index offset, or before it when reversed with 0 meaning the end, in index order
+    synchronized List<Record> page(long indexOffset, int limit, boolean reversed) throws IOException {
+        NavigableMap<Long, Entry> range;
+
+        if (reversed) {
+            range = (indexOffset > 0 ? indexed.headMap(indexOffset, false) : indexed).descendingMap();
+        } else {
+            range = indexed.tailMap(indexOffset, false);
+        }
+
+        List<Record> page = new ArrayList<>();
+
+        for (Entry entry : range.values()) {
+            if (page.size() >= limit) {
+                break;
+            }
+
+            page.add(read(reader, entry));
+        }
+
+        if (reversed) {
+            Collections.reverse(page);
+        }
+
+        return page;
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    synchronized long lastIndex() {
+        return indexed.isEmpty() ? 0 : indexed.lastKey();
+    }
+
+    synchronized long lastSettleIndex() {
+        return lastSettleIndex;
+    }
+
+    // The index to resume from so that pending records are fetched again
+    synchronized long resumeIndex() {
+        for (Entry entry : indexed.values()) {
+            if (entry.pending) {
+                return entry.index - 1;
+            }
+        }
+
+        return lastIndex();
+    }
+
+    synchronized void close() {
+        try {
+            outputStream.close();
+            reader.close();
+        } catch (IOException e) {
+            Log.e(TAG, "Error closing " + file, e);
+        }
+    }
+
+    private void index(Entry entry) {
+        Entry existing = entries.put(entry.hash, entry);
+
+        if (existing != null) {
+            indexed.remove(existing.index);
+        }
+
+        indexed.put(entry.index, entry);
+        lastSettleIndex = Math.max(lastSettleIndex, entry.settleIndex);
+    }
+
+    private void load() throws IOException {
+        if (!file.exists()) {
+            return;
+        }
+
+        long valid = 0;
+
+        try (DataInputStream inputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            while (true) {
+                LoadedRecord record = read(inputStream);
+
+                if (record == null) {
+                    break;
+                }
+
+                index(new Entry(record, valid, 8 + record.size));
+                written++;
+                valid += 8 + record.size;
+            }
+        }
+
+        if (valid < file.length()) {
+            // A write was interrupted, drop the partial record
+            Log.w(TAG, "Truncating " + file + " from " + file.length() + " to " + valid);
+
+            try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+                randomAccessFile.setLength(valid);
+            }
+        }
+
+        length = valid;
+    }
+
+    // Rewrites the live records in index order and atomically replaces the file
+    private void compact() throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+        List<Entry> compacted = new ArrayList<>();
+        long offset = 0;
+
+        try (RandomAccessFile source = new RandomAccessFile(file, "r");
+             FileOutputStream fileOutputStream = new FileOutputStream(temp)) {
+            DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(fileOutputStream));
+
+            for (Entry entry : indexed.values()) {
+                Record record = read(source, entry);
+                int size = write(outputStream, record);
+                compacted.add(new Entry(record, offset, size));
+                offset += size;
+            }
+
+            outputStream.flush();
+            fileOutputStream.getFD().sync();
+        }
+
+        if (!temp.renameTo(file)) {
+            temp.delete();
+            throw new IOException("Could not rename " + temp + " to " + file);
+        }
+
+        LndConf.syncDirectory(file.getParentFile());
+        Log.i(TAG, "Compacted " + file + " from " + written + " to " + entries.size() + " records");
+
+        for (Entry entry : compacted) {
+            index(entry);
+        }
+
+        length = offset;
+        written = entries.size();
+    }
+
+    private static Record read(RandomAccessFile randomAccessFile, Entry entry) throws IOException {
+        byte[] frame = new byte[entry.size];
+        randomAccessFile.seek(entry.offset);
+        randomAccessFile.readFully(frame);
+
+        Record record = read(new DataInputStream(new ByteArrayInputStream(frame)));
+
+        if (record == null) {
+            throw new IOException("Corrupt record at offset " + entry.offset);
+        }
+
+        return record;
+    }
+
+    private static int checksum(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return (int) crc.getValue();
+    }
+
+    // Each record is framed by its length and a CRC32 of the body, returns the framed size
+    private static int write(DataOutputStream outputStream, Record record) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(record.data.length + 96);
+        DataOutputStream bodyStream = new DataOutputStream(body);
+        bodyStream.writeUTF(record.hash);
+        bodyStream.writeLong(record.index);
+        bodyStream.writeLong(record.settleIndex);
+        bodyStream.writeBoolean(record.pending);
+        bodyStream.write(record.data);
+
+        byte[] bytes = body.toByteArray();
+
+        outputStream.writeInt(bytes.length);
+        outputStream.writeInt(checksum(bytes));
+        outputStream.write(bytes);
+        return 8 + bytes.length;
+    }
+
+    private static LoadedRecord read(DataInputStream inputStream) throws IOException {
+        try {
+            int size = inputStream.readInt();
+            int checksum = inputStream.readInt();
+
+            if (size < 0 || size > MAX_RECORD_SIZE) {
+                return null;
+            }
+
+            byte[] bytes = new byte[size];
+            inputStream.readFully(bytes);
+
+            if (checksum(bytes) != checksum) {
+                return null;
+            }
+
+            DataInputStream bodyStream = new DataInputStream(new ByteArrayInputStream(bytes));
+            String hash = bodyStream.readUTF();
+            long index = bodyStream.readLong();
+            long settleIndex = bodyStream.readLong();
+            boolean pending = bodyStream.readBoolean();
+            byte[] data = new byte[bodyStream.available()];
+            bodyStream.readFully(data);
+
+            return new LoadedRecord(hash, index, settleIndex, pending, data, size);
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    private static class LoadedRecord extends Record {
+        final int size;
+
+        LoadedRecord(String hash, long index, long settleIndex, boolean pending, byte[] data, int size) {
+            super(hash, index, settleIndex, pending, data);
+            this.size = size;
+        }
+    }
+}
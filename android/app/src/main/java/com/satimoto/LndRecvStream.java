@@ -1,45 +1,237 @@
 package com.satimoto;
 
-import android.util.Base64;
-
 import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableArray;
 import com.facebook.react.bridge.WritableMap;
 import com.facebook.react.modules.core.DeviceEventManagerModule.RCTDeviceEventEmitter;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
 import lndmobile.RecvStream;
 
 public class LndRecvStream implements RecvStream {
-    String streamId;
+    long streamId;
+    String method;
     RCTDeviceEventEmitter emitter;
+    LndStreamOptions options;
+    LndStreamStats stats;
+    LndMetrics metrics;
+    LndStreamListener listener;
+    // Set when the stream is a subscriber of a shared upstream
+    LndSharedStream upstream;
 
     private static final String streamEventName = "streamEvent";
+    // Bounds how long BLOCK holds lnd's callback thread, which other streams may share
+    static final long BLOCK_TIMEOUT = 1000;
+    private static final ScheduledExecutorService flushExecutor = Executors.newSingleThreadScheduledExecutor();
 
-    LndRecvStream(String id, RCTDeviceEventEmitter emitter) {
+    private final Deque<byte[]> queue = new ArrayDeque<>();
+    private WritableMap endEvent;
+    private boolean failed;
+    private boolean flushScheduled;
+    private volatile boolean closed;
+    private int inFlight;
+    private long lastEmitted;
+
+    LndRecvStream(long id, String method, RCTDeviceEventEmitter emitter, LndStreamOptions options, LndStreamListener listener) {
         this.streamId = id;
+        this.method = method;
         this.emitter = emitter;
+        this.options = options;
+        this.stats = LndStreamStats.get(method);
+        this.metrics = LndMetrics.get(method);
+        this.listener = listener;
+        this.metrics.recordStreamOpen();
     }
 
     @Override
     public void onError(Exception e) {
-        String type = e.getLocalizedMessage().contains("EOF") ? "end" : "error";
-        WritableMap params = Arguments.createMap();
-        params.putString("streamId", streamId);
-        params.putString("type", type);
-        params.putString("error", e.getLocalizedMessage());
-        emitter.emit(LndRecvStream.streamEventName, params);
+        String message = e.getLocalizedMessage();
+        String type = message != null && message.contains("EOF") ? "end" : "error";
+
+        synchronized (this) {
+            if (closed) {
+                // Closed by JS, nothing left to emit but the registry can now drop the stream
+                listener.onStreamClose(streamId);
+                return;
+            }
+
+            failed = type.equals("error");
+            endEvent = Arguments.createMap();
+            endEvent.putDouble("streamId", streamId);
+            endEvent.putString("type", type);
+            endEvent.putString("error", message);
+            drain(true);
+        }
     }
 
     @Override
     public void onResponse(byte[] bytes) {
-        String base64Data = "";
-        if (bytes != null && bytes.length > 0) {
-            base64Data = Base64.encodeToString(bytes, Base64.NO_WRAP);
+        // Balances change whether or not JS still listens
+        LndResponseCache.onStreamMessage(method, bytes);
+
+        if (closed) {
+            return;
+        }
+
+        metrics.recordStreamMessage(bytes != null ? bytes.length : 0);
+        LndHistory.onStreamMessage(method, bytes);
+        offer(bytes);
+    }
+
+    // Queues a message for emission, a shared upstream calls this for each subscriber
+    void offer(byte[] bytes) {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+
+            if (options.queueSize > 0 && queue.size() >= options.queueSize) {
+                switch (options.overflow) {
+                    case DROP_OLDEST:
+                        queue.pollFirst();
+                        stats.recordDropped();
+                        break;
+                    case COALESCE_LATEST:
+                        queue.pollLast();
+                        stats.recordCoalesced();
+                        break;
+                    case BLOCK:
+                        awaitCapacity();
+                        break;
+                }
+            }
+
+            if (closed) {
+                return;
+            }
+
+            queue.addLast(bytes);
+            drain(false);
         }
+    }
+
+    // Called when JS has processed an event emitted with "ack"
+    synchronized void ack() {
+        inFlight = Math.max(0, inFlight - 1);
+        drain(false);
+        notifyAll();
+    }
+
+    // Stops emission and releases a Go callback blocked on a full queue
+    void close() {
+        synchronized (this) {
+            if (!closed) {
+                metrics.recordStreamClose(false);
+            }
+
+            closed = true;
+            queue.clear();
+            notifyAll();
+        }
+
+        if (upstream != null) {
+            // No Go callback refers to a subscriber, so it is dropped at once
+            upstream.unsubscribe(this);
+            listener.onStreamClose(streamId);
+        }
+    }
+
+    private void awaitCapacity() {
+        // Blocks the Go callback so lnd stops producing until JS catches up
+        long deadline = System.currentTimeMillis() + BLOCK_TIMEOUT;
 
+        while (!closed && queue.size() >= options.queueSize) {
+            long remaining = deadline - System.currentTimeMillis();
+
+            if (remaining <= 0) {
+                // JS never acked, e.g. the event was dropped or its handler removed, so forget the acks and drop the oldest
+                inFlight = 0;
+                queue.pollFirst();
+                stats.recordDropped();
+                drain(false);
+                return;
+            }
+
+            try {
+                wait(remaining);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private synchronized void scheduledFlush() {
+        flushScheduled = false;
+        drain(true);
+    }
+
+    private void scheduleFlush(long delay) {
+        if (!flushScheduled) {
+            flushScheduled = true;
+            flushExecutor.schedule(this::scheduledFlush, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void drain(boolean flush) {
+        while (!queue.isEmpty() && (options.maxInFlight == 0 || inFlight < options.maxInFlight)) {
+            if (!flush && options.batchSize > 1 && queue.size() < options.batchSize) {
+                scheduleFlush(options.batchInterval);
+                return;
+            }
+
+            long delay = lastEmitted + options.minInterval - System.currentTimeMillis();
+
+            if (options.minInterval > 0 && delay > 0) {
+                scheduleFlush(delay);
+                return;
+            }
+
+            emit(Math.min(queue.size(), Math.max(options.batchSize, 1)));
+        }
+
+        if (queue.isEmpty() && endEvent != null && !closed) {
+            closed = true;
+            metrics.recordStreamClose(failed);
+            emitter.emit(LndRecvStream.streamEventName, endEvent);
+            notifyAll();
+            listener.onStreamClose(streamId);
+        }
+    }
+
+    private void emit(int count) {
         WritableMap params = Arguments.createMap();
-        params.putString("streamId", streamId);
-        params.putString("type", "data");
-        params.putString("data", base64Data);
+        params.putDouble("streamId", streamId);
+
+        if (options.batchSize <= 1) {
+            params.putString("type", "data");
+            LndBuffers.putData(params, queue.pollFirst());
+        } else {
+            WritableArray items = Arguments.createArray();
+
+            for (int i = 0; i < count; i++) {
+                WritableMap item = Arguments.createMap();
+                LndBuffers.putData(item, queue.pollFirst());
+                items.pushMap(item);
+            }
+
+            params.putString("type", "batch");
+            params.putArray("items", items);
+        }
+
+        if (options.maxInFlight > 0) {
+            params.putBoolean("ack", true);
+            inFlight++;
+        }
+
         emitter.emit(LndRecvStream.streamEventName, params);
+        stats.recordEvent(count);
+        lastEmitted = System.currentTimeMillis();
+        notifyAll();
     }
-}
\ No newline at end of file
+}
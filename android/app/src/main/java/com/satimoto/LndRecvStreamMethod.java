@@ -0,0 +1,7 @@
+package com.satimoto;
+
+import lndmobile.RecvStream;
+
+interface LndRecvStreamMethod {
+    void invoke(byte[] msg, RecvStream recvStream) throws Exception;
+}
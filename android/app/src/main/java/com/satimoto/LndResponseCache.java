@@ -0,0 +1,200 @@
+package com.satimoto;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.ReadableMapKeySetIterator;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import lnrpc.LightningOuterClass;
+
+/**
+ * Opt-in cache of idempotent LND responses keyed by method and request, with
+ * per-method TTLs and invalidation driven by stream events.
+ */
+public class LndResponseCache {
+    private static final String[] BALANCE_METHODS = {"ChannelBalance", "ListChannels", "WalletBalance"};
+
+    private static final Map<String, Long> ttls = new ConcurrentHashMap<>();
+    private static final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private static final Map<String, LndResponseCache> caches = new ConcurrentHashMap<>();
+
+    private long generation;
+    private long hits;
+    private long misses;
+    private long invalidations;
+
+    private static class Entry {
+        String method;
+        byte[] bytes;
+        long expiresAt;
+
+        Entry(String method, byte[] bytes, long expiresAt) {
+            this.method = method;
+            this.bytes = bytes;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    // Replaces the per-method TTLs in milliseconds, an empty map disables the cache
+    static void configure(ReadableMap options) {
+        ttls.clear();
+        entries.clear();
+
+        ReadableMapKeySetIterator iterator = options.keySetIterator();
+
+        while (iterator.hasNextKey()) {
+            String method = iterator.nextKey();
+            long ttl = (long) options.getDouble(method);
+
+            if (ttl > 0) {
+                ttls.put(method, ttl);
+            }
+        }
+    }
+
+    static boolean isCached(String method) {
+        return ttls.containsKey(method);
+    }
+
+    static String key(String method, String msg) {
+        return method + ":" + msg;
+    }
+
+    static byte[] get(String method, String key) {
+        LndResponseCache cache = get(method);
+        Entry entry = entries.get(key);
+
+        if (entry != null && entry.expiresAt > System.currentTimeMillis()) {
+            cache.recordHit();
+            return entry.bytes;
+        }
+
+        if (entry != null) {
+            entries.remove(key, entry);
+        }
+
+        cache.recordMiss();
+        return null;
+    }
+
+    // Call before sending the request, a response is only stored if nothing was invalidated meanwhile
+    static long generation(String method) {
+        return get(method).currentGeneration();
+    }
+
+    static void put(String method, String key, long generation, byte[] bytes) {
+        Long ttl = ttls.get(method);
+
+        if (ttl == null || bytes == null) {
+            return;
+        }
+
+        LndResponseCache cache = get(method);
+
+        synchronized (cache) {
+            if (cache.generation == generation) {
+                entries.put(key, new Entry(method, bytes, System.currentTimeMillis() + ttl));
+            }
+        }
+    }
+
+    static void invalidate(String... methods) {
+        for (String method : methods) {
+            LndResponseCache cache = get(method);
+
+            synchronized (cache) {
+                cache.generation++;
+                cache.invalidations++;
+                entries.values().removeIf(entry -> entry.method.equals(method));
+            }
+        }
+    }
+
+    // Write calls whose balance changes may not arrive as a stream message
+    static void onCommand(String method) {
+        if (ttls.isEmpty()) {
+            return;
+        }
+
+        switch (method) {
+            case "SendPaymentSync":
+            case "SendToRouteSync":
+            case "RouterSendToRouteV2":
+            case "SendCoins":
+            case "SendMany":
+            case "OpenChannelSync":
+            case "AbandonChannel":
+                invalidate(BALANCE_METHODS);
+                break;
+        }
+    }
+
+    static void onStreamMessage(String method, byte[] bytes) {
+        if (ttls.isEmpty()) {
+            return;
+        }
+
+        switch (method) {
+            case "SubscribeChannelEvents":
+            case "RouterSendPaymentV2":
+            case "RouterTrackPaymentV2":
+            case "SubscribeTransactions":
+                invalidate(BALANCE_METHODS);
+                break;
+            case "SubscribeInvoices":
+                if (isSettled(bytes)) {
+                    invalidate(BALANCE_METHODS);
+                }
+                break;
+            case "ChainNotifierRegisterBlockEpochNtfn":
+                invalidate("GetInfo");
+                break;
+        }
+    }
+
+    static WritableMap snapshot() {
+        WritableMap params = Arguments.createMap();
+
+        for (Map.Entry<String, LndResponseCache> entry : caches.entrySet()) {
+            params.putMap(entry.getKey(), entry.getValue().toWritableMap());
+        }
+
+        return params;
+    }
+
+    private static LndResponseCache get(String method) {
+        return caches.computeIfAbsent(method, m -> new LndResponseCache());
+    }
+
+    private static boolean isSettled(byte[] bytes) {
+        try {
+            return LightningOuterClass.Invoice.parseFrom(bytes).getState() == LightningOuterClass.Invoice.InvoiceState.SETTLED;
+        } catch (Exception e) {
+            return true;
+        }
+    }
+
+    private synchronized long currentGeneration() {
+        return generation;
+    }
+
+    private synchronized void recordHit() {
+        hits++;
+    }
+
+    private synchronized void recordMiss() {
+        misses++;
+    }
+
+    private synchronized WritableMap toWritableMap() {
+        WritableMap params = Arguments.createMap();
+        params.putDouble("hits", hits);
+        params.putDouble("misses", misses);
+        params.putDouble("hitRatio", hits + misses > 0 ? (double) hits / (hits + misses) : 0);
+        params.putDouble("invalidations", invalidations);
+        return params;
+    }
+}
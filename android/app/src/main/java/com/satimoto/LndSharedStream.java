@@ -0,0 +1,148 @@
+package com.satimoto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import lndmobile.RecvStream;
+
+/**
+ * One upstream LND subscription shared by every JS stream opened with the
+ * same method and request. Each message is counted and encoded once and then
+ * fanned out to the subscribers, which keep their own emission options
+ * except that a full subscriber drops its oldest event instead of blocking.
+ * Receive streams cannot be cancelled, so an upstream without subscribers
+ * stays idle until it is reused or lnd ends it.
+ */
+public class LndSharedStream implements RecvStream {
+    // Streams whose latest message is the current state, replayed to late subscribers
+    private static final Set<String> LATEST_METHODS = new HashSet<>(Arrays.asList(
+            "ChainNotifierRegisterBlockEpochNtfn", "SubscribeState"));
+
+    private static final Map<String, LndSharedStream> upstreams = new HashMap<>();
+
+    final String key;
+    final String method;
+    private final boolean latest;
+    private final boolean replaysHistory;
+    private final LndMetrics metrics;
+    private final List<LndRecvStream> subscribers = new CopyOnWriteArrayList<>();
+    private byte[] last;
+    private boolean received;
+    private boolean ended;
+
+    private LndSharedStream(String key, String method, boolean replaysHistory) {
+        this.key = key;
+        this.method = method;
+        this.latest = LATEST_METHODS.contains(method);
+        this.replaysHistory = replaysHistory;
+        this.metrics = LndMetrics.get(method);
+    }
+
+    // Only subscriptions are shared, every other stream acts on its own request
+    static boolean isShareable(String method) {
+        return LATEST_METHODS.contains(method) || method.contains("Subscribe");
+    }
+
+    // Adds the subscriber to a matching upstream, or returns a new upstream the caller has to start
+    static synchronized LndSharedStream subscribe(String key, String method, boolean replaysHistory, LndRecvStream subscriber) {
+        LndSharedStream upstream = upstreams.get(key);
+
+        if (upstream != null && upstream.join(subscriber)) {
+            return null;
+        }
+
+        // Replaces an upstream that ended or whose history a new subscriber would miss
+        upstream = new LndSharedStream(key, method, replaysHistory);
+        upstream.join(subscriber);
+        upstreams.put(key, upstream);
+        return upstream;
+    }
+
+    static synchronized int count() {
+        return upstreams.size();
+    }
+
+    private static synchronized void remove(LndSharedStream upstream) {
+        upstreams.remove(upstream.key, upstream);
+    }
+
+    private synchronized boolean join(LndRecvStream subscriber) {
+        if (ended || (received && replaysHistory && !latest)) {
+            return false;
+        }
+
+        if (subscriber.options.overflow == LndStreamOptions.Overflow.BLOCK) {
+            // Blocking one subscriber would stall the upstream and every other subscriber
+            subscriber.options.overflow = LndStreamOptions.Overflow.DROP_OLDEST;
+        }
+
+        subscriber.upstream = this;
+        subscribers.add(subscriber);
+
+        if (latest && last != null) {
+            subscriber.offer(last);
+        }
+
+        return true;
+    }
+
+    void unsubscribe(LndRecvStream subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    @Override
+    public void onError(Exception e) {
+        synchronized (this) {
+            ended = true;
+        }
+
+        remove(this);
+
+        for (LndRecvStream subscriber : subscribers) {
+            subscriber.onError(e);
+        }
+
+        subscribers.clear();
+    }
+
+    @Override
+    public void onResponse(byte[] bytes) {
+        LndResponseCache.onStreamMessage(method, bytes);
+
+        List<LndRecvStream> targets;
+
+        synchronized (this) {
+            received = true;
+
+            if (latest) {
+                last = bytes;
+            }
+
+            // A subscriber joining after the copy gets this message as the replay of the last one
+            targets = new ArrayList<>(subscribers);
+        }
+
+        if (targets.isEmpty()) {
+            return;
+        }
+
+        metrics.recordStreamMessage(bytes != null ? bytes.length : 0);
+        LndHistory.onStreamMessage(method, bytes);
+
+        // Latest messages are also shared with the subscribers they are replayed to
+        if (targets.size() > 1 || latest) {
+            LndBuffers.share(bytes);
+        }
+
+        // Offered outside the lock, a subscriber waiting for JS must not hold up joins and closes
+        for (LndRecvStream subscriber : targets) {
+            subscriber.offer(bytes);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.satimoto;
+
+import com.facebook.react.bridge.Promise;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Shares one in-flight LND call between identical concurrent commands, the
+ * followers are resolved from the leader's callback.
+ */
+public class LndSingleFlight {
+    private static final String[] READ_PREFIXES = {"Decode", "Describe", "Estimate", "Get", "List", "Lookup", "Query"};
+    private static final Set<String> READ_METHODS = new HashSet<>(Arrays.asList(
+            "ChannelBalance", "ClosedChannels", "FeeReport", "PendingChannels", "WalletBalance"));
+
+    private static final Map<String, List<Promise>> flights = new HashMap<>();
+
+    // Only read-only calls are shared, two identical payments must both be sent
+    static boolean isShareable(String method) {
+        if (READ_METHODS.contains(method)) {
+            return true;
+        }
+
+        for (String prefix : READ_PREFIXES) {
+            if (method.startsWith(prefix)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    // Returns true if an identical call is in flight and the promise now waits on it
+    static synchronized boolean join(String key, Promise promise) {
+        List<Promise> followers = flights.get(key);
+
+        if (followers != null) {
+            followers.add(promise);
+            return true;
+        }
+
+        flights.put(key, new ArrayList<>());
+        return false;
+    }
+
+    static synchronized List<Promise> complete(String key) {
+        List<Promise> followers = flights.remove(key);
+        return followers != null ? followers : Collections.emptyList();
+    }
+}
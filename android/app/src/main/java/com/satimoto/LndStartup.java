@@ -0,0 +1,210 @@
+package com.satimoto;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import lndmobile.Lndmobile;
+
+/**
+ * Starts LND as a pipeline, provisioning the conf and loading the native
+ * library in parallel before starting the daemon, and records when each
+ * phase completed. With early start enabled the pipeline is kicked off from
+ * MainApplication and the JS start() attaches to it.
+ */
+public class LndStartup {
+    private static final String TAG = "LndStartup";
+    private static final String PREFERENCES = "LndStartup";
+    private static final String EARLY_START = "earlyStart";
+    private static final Set<String> UNLOCKER_METHODS = new HashSet<>(Arrays.asList(
+            "GenSeed", "GetState", "InitWallet", "StopDaemon", "UnlockWallet"));
+
+    private static final AtomicInteger threadCount = new AtomicInteger();
+    private static final ExecutorService executor = Executors.newFixedThreadPool(2,
+            runnable -> new Thread(runnable, "lnd-startup-" + threadCount.incrementAndGet()));
+
+    private static volatile LndStartup instance;
+
+    final String lndPath;
+    final String confPath;
+    final String logPath;
+
+    private final Map<String, Long> phases = new LinkedHashMap<>();
+    private CompletableFuture<String> future;
+    private CompletableFuture<Void> unlockFuture;
+    private long startedAt;
+    private boolean early;
+    private volatile boolean awaitingRpc;
+
+    private LndStartup(Context context) {
+        lndPath = LndUtils.lndPath(context);
+        confPath = LndUtils.confPath(lndPath);
+        logPath = LndUtils.logPath(lndPath);
+    }
+
+    static synchronized LndStartup get(Context context) {
+        if (instance == null) {
+            instance = new LndStartup(context.getApplicationContext());
+        }
+
+        return instance;
+    }
+
+    static boolean isEarlyStartEnabled(Context context) {
+        return preferences(context).getBoolean(EARLY_START, false);
+    }
+
+    static void setEarlyStartEnabled(Context context, boolean enabled) {
+        preferences(context).edit().putBoolean(EARLY_START, enabled).apply();
+    }
+
+    // Called from MainApplication.onCreate, before React Native and the JS bundle load
+    static void startEarly(Context context) {
+        if (isEarlyStartEnabled(context)) {
+            LndStartup startup = get(context);
+
+            synchronized (startup) {
+                startup.start();
+                startup.early = true;
+            }
+        }
+    }
+
+    // Starts LND, or returns the running startup unless it failed or LND was stopped
+    synchronized CompletableFuture<String> start() {
+        if (future != null && !future.isCompletedExceptionally()) {
+            return future;
+        }
+
+        phases.clear();
+        startedAt = System.nanoTime();
+        early = false;
+
+        // Time from process start to the pipeline starting shows the gain of early start
+        phases.put("processStart", -(SystemClock.elapsedRealtime() - Process.getStartElapsedRealtime()));
+
+        CompletableFuture<Void> config = CompletableFuture.runAsync(() -> {
+            LndLogFiles.rotate(logPath);
+
+            try {
+                boolean written = LndUtils.writeConfIfChanged(lndPath);
+                Log.d(TAG, written ? "Saved LND conf to: " + confPath : "LND conf unchanged");
+            } catch (Exception e) {
+                Log.e(TAG, "Could not write to " + confPath, e);
+                throw new IllegalStateException("Could not write to : " + confPath, e);
+            }
+
+            markPhase("config");
+        }, executor);
+
+        CompletableFuture<Void> nativeLib = CompletableFuture.runAsync(() -> {
+            go.Seq.touch();
+            markPhase("nativeLibLoad");
+        }, executor);
+
+        future = config.thenCombine(nativeLib, (c, n) -> "--lnddir=" + lndPath + " --configfile=" + confPath)
+                .thenComposeAsync(this::startDaemon, executor);
+
+        return future;
+    }
+
+    // Called from the JS start(), joins an early start if one is running
+    synchronized CompletableFuture<String> attach() {
+        CompletableFuture<String> started = start();
+        markPhase("jsStart");
+        return started;
+    }
+
+    // Starts LND and unlocks the wallet natively, resolving with the phase timings once the server is active
+    synchronized CompletableFuture<WritableMap> startAndUnlock(byte[] unlockRequest) {
+        if (unlockFuture == null || unlockFuture.isCompletedExceptionally()) {
+            unlockFuture = attach().thenComposeAsync(response -> new LndUnlocker(unlockRequest, this, executor).start(), executor);
+        }
+
+        // A map can only be handed to the bridge once, so each caller gets its own
+        return unlockFuture.thenApply(ignored -> toWritableMap());
+    }
+
+    private static SharedPreferences preferences(Context context) {
+        return context.getSharedPreferences(PREFERENCES, Context.MODE_PRIVATE);
+    }
+
+    private CompletableFuture<String> startDaemon(String args) {
+        CompletableFuture<String> started = new CompletableFuture<>();
+
+        Log.i(TAG, "Starting LND with args " + args);
+        Lndmobile.start(args, new StartLndCallback(started));
+
+        return started.thenApply(response -> {
+            markPhase("unlockerReady");
+            awaitingRpc = true;
+            return response;
+        });
+    }
+
+    static void recordResponse(String method) {
+        LndStartup startup = instance;
+
+        if (startup == null) {
+            return;
+        }
+
+        if ("StopDaemon".equals(method)) {
+            startup.onStopped();
+        } else if ("InitWallet".equals(method) || "UnlockWallet".equals(method)) {
+            startup.markPhase("walletUnlocked");
+        } else if (startup.awaitingRpc && !UNLOCKER_METHODS.contains(method)) {
+            // The first Lightning RPC to answer after the unlocker means the RPC server is up
+            startup.awaitingRpc = false;
+            startup.markPhase("rpcReady");
+        }
+    }
+
+    // The startup futures stay completed while LND runs, so the next start has to begin again
+    private synchronized void onStopped() {
+        future = null;
+        unlockFuture = null;
+        awaitingRpc = false;
+    }
+
+    static WritableMap snapshot() {
+        LndStartup startup = instance;
+        return startup != null ? startup.toWritableMap() : Arguments.createMap();
+    }
+
+    private synchronized WritableMap toWritableMap() {
+        WritableMap params = Arguments.createMap();
+        params.putBoolean("early", early);
+
+        for (Map.Entry<String, Long> entry : phases.entrySet()) {
+            params.putDouble(entry.getKey(), entry.getValue());
+        }
+
+        return params;
+    }
+
+    synchronized void markPhase(String phase) {
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+
+        if (!phases.containsKey(phase)) {
+            phases.put(phase, elapsed);
+            Log.i(TAG, "Startup phase " + phase + " after " + elapsed + "ms");
+        }
+    }
+}
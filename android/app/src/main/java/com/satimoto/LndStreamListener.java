@@ -0,0 +1,5 @@
+package com.satimoto;
+
+interface LndStreamListener {
+    void onStreamClose(long streamId);
+}
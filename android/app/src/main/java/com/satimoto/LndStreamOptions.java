@@ -0,0 +1,74 @@
+package com.satimoto;
+
+import com.facebook.react.bridge.ReadableMap;
+
+/**
+ * Emission options for a LND stream, passed from JS to sendStreamCommand.
+ */
+public class LndStreamOptions {
+    enum Overflow {
+        DROP_OLDEST,
+        COALESCE_LATEST,
+        BLOCK
+    }
+
+    private static final long DEFAULT_BATCH_INTERVAL = 16;
+    private static final int DEFAULT_MAX_IN_FLIGHT = 2;
+    private static final long FRAME_INTERVAL = 16;
+
+    // Messages per emitted event, 0 or 1 emits each message on its own
+    int batchSize;
+    // Milliseconds to wait for a batch to fill before flushing it
+    long batchInterval = DEFAULT_BATCH_INTERVAL;
+    // Maximum queued messages, 0 leaves the queue unbounded and disables flow control
+    int queueSize;
+    // BLOCK parks lnd's callback thread for up to LndRecvStream.BLOCK_TIMEOUT, so it is opt-in only
+    Overflow overflow = Overflow.DROP_OLDEST;
+    // Emitted events JS has not acknowledged yet
+    int maxInFlight;
+    // Minimum milliseconds between emitted events
+    long minInterval;
+
+    static LndStreamOptions fromReadableMap(ReadableMap map) {
+        LndStreamOptions options = new LndStreamOptions();
+
+        if (map == null) {
+            return options;
+        }
+
+        if (map.hasKey("batchSize")) {
+            options.batchSize = map.getInt("batchSize");
+        }
+
+        if (map.hasKey("batchInterval")) {
+            options.batchInterval = map.getInt("batchInterval");
+        }
+
+        if (map.hasKey("queueSize")) {
+            options.queueSize = map.getInt("queueSize");
+            options.maxInFlight = map.hasKey("maxInFlight") ? map.getInt("maxInFlight") : DEFAULT_MAX_IN_FLIGHT;
+        }
+
+        if (map.hasKey("coalesce") && map.getBoolean("coalesce")) {
+            // Keep only the latest message and emit it at most once per JS frame
+            options.queueSize = 1;
+            options.overflow = Overflow.COALESCE_LATEST;
+            options.minInterval = FRAME_INTERVAL;
+            return options;
+        }
+
+        if (map.hasKey("overflow")) {
+            String overflow = map.getString("overflow");
+
+            if ("block".equals(overflow)) {
+                options.overflow = Overflow.BLOCK;
+            } else if ("coalesceLatest".equals(overflow)) {
+                options.overflow = Overflow.COALESCE_LATEST;
+            } else {
+                options.overflow = Overflow.DROP_OLDEST;
+            }
+        }
+
+        return options;
+    }
+}
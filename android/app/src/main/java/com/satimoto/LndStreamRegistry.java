@@ -0,0 +1,150 @@
+package com.satimoto;
+
+import android.util.Log;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import lndmobile.SendStream;
+
+/**
+ * Tracks every receive and bidirectional stream from open through closing to
+ * closed. Closing stops emission at once, the entry is dropped when the Go
+ * side ends the stream.
+ */
+public class LndStreamRegistry {
+    private static final String TAG = "LndStreamRegistry";
+
+    enum State {
+        OPEN,
+        CLOSING,
+        CLOSED
+    }
+
+    private static class Entry {
+        final LndRecvStream recvStream;
+        SendStream sendStream;
+        volatile State state = State.OPEN;
+
+        Entry(LndRecvStream recvStream) {
+            this.recvStream = recvStream;
+        }
+    }
+
+    private final Map<Long, Entry> streams = new ConcurrentHashMap<>();
+
+    void register(LndRecvStream recvStream) {
+        streams.put(recvStream.streamId, new Entry(recvStream));
+    }
+
+    // Returns false and stops the send stream if the stream was closed while it was starting
+    boolean attach(long streamId, SendStream sendStream) {
+        Entry entry = streams.get(streamId);
+
+        if (entry != null) {
+            synchronized (entry) {
+                if (entry.state == State.OPEN) {
+                    entry.sendStream = sendStream;
+                    return true;
+                }
+            }
+        }
+
+        stop(sendStream);
+        return false;
+    }
+
+    LndRecvStream recvStream(long streamId) {
+        Entry entry = streams.get(streamId);
+        return entry != null && entry.state == State.OPEN ? entry.recvStream : null;
+    }
+
+    SendStream sendStream(long streamId) {
+        Entry entry = streams.get(streamId);
+        return entry != null && entry.state == State.OPEN ? entry.sendStream : null;
+    }
+
+    // Called by JS, unshared receive-only streams have no handle so they stay closing until lnd ends them
+    void close(long streamId) {
+        Entry entry = streams.get(streamId);
+        SendStream sendStream;
+
+        if (entry == null) {
+            return;
+        }
+
+        synchronized (entry) {
+            if (entry.state != State.OPEN) {
+                return;
+            }
+
+            entry.state = State.CLOSING;
+            sendStream = entry.sendStream;
+        }
+
+        entry.recvStream.close();
+
+        if (sendStream != null) {
+            stop(sendStream);
+        }
+    }
+
+    // Called when the JS context goes away, releasing any Go callback waiting on its acks
+    void closeAll() {
+        for (Long streamId : streams.keySet()) {
+            close(streamId);
+        }
+    }
+
+    // Called when the Go side ended the stream with an error or EOF
+    void onClosed(long streamId) {
+        Entry entry = streams.remove(streamId);
+
+        if (entry != null) {
+            synchronized (entry) {
+                entry.state = State.CLOSED;
+            }
+        }
+    }
+
+    WritableMap snapshot() {
+        Map<String, Integer> methods = new HashMap<>();
+        int open = 0;
+        int closing = 0;
+
+        for (Entry entry : streams.values()) {
+            if (entry.state == State.OPEN) {
+                open++;
+                Integer count = methods.get(entry.recvStream.method);
+                methods.put(entry.recvStream.method, count != null ? count + 1 : 1);
+            } else if (entry.state == State.CLOSING) {
+                closing++;
+            }
+        }
+
+        WritableMap params = Arguments.createMap();
+        WritableMap methodParams = Arguments.createMap();
+
+        for (Map.Entry<String, Integer> entry : methods.entrySet()) {
+            methodParams.putInt(entry.getKey(), entry.getValue());
+        }
+
+        params.putInt("open", open);
+        params.putInt("closing", closing);
+        params.putInt("upstreams", LndSharedStream.count());
+        params.putMap("methods", methodParams);
+        return params;
+    }
+
+    private static void stop(SendStream sendStream) {
+        try {
+            sendStream.stop();
+        } catch (Exception e) {
+            Log.e(TAG, "Error stopping stream", e);
+        }
+    }
+}
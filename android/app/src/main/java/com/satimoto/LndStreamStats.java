@@ -0,0 +1,59 @@
+package com.satimoto;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-method stream counters, used to tune stream batching and overflow policies.
+ */
+public class LndStreamStats {
+    private static final Map<String, LndStreamStats> stats = new ConcurrentHashMap<>();
+
+    private long messages;
+    private long events;
+    private long maxMessagesPerEvent;
+    private long dropped;
+    private long coalesced;
+
+    static LndStreamStats get(String method) {
+        return stats.computeIfAbsent(method, m -> new LndStreamStats());
+    }
+
+    synchronized void recordEvent(int messageCount) {
+        messages += messageCount;
+        events++;
+        maxMessagesPerEvent = Math.max(maxMessagesPerEvent, messageCount);
+    }
+
+    synchronized void recordDropped() {
+        dropped++;
+    }
+
+    synchronized void recordCoalesced() {
+        coalesced++;
+    }
+
+    synchronized WritableMap toWritableMap() {
+        WritableMap params = Arguments.createMap();
+        params.putDouble("messages", messages);
+        params.putDouble("events", events);
+        params.putDouble("maxMessagesPerEvent", maxMessagesPerEvent);
+        params.putDouble("messagesPerEvent", events > 0 ? (double) messages / events : 0);
+        params.putDouble("dropped", dropped);
+        params.putDouble("coalesced", coalesced);
+        return params;
+    }
+
+    static WritableMap snapshot() {
+        WritableMap params = Arguments.createMap();
+
+        for (Map.Entry<String, LndStreamStats> entry : stats.entrySet()) {
+            params.putMap(entry.getKey(), entry.getValue().toWritableMap());
+        }
+
+        return params;
+    }
+}
@@ -0,0 +1,7 @@
+package com.satimoto;
+
+import lndmobile.Callback;
+
+interface LndSyncMethod {
+    void invoke(byte[] msg, Callback callback) throws Exception;
+}
@@ -0,0 +1,149 @@
+package com.satimoto;
+
+import android.util.Log;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import lndmobile.Callback;
+import lndmobile.Lndmobile;
+import lndmobile.RecvStream;
+import lnrpc.Stateservice;
+
+/**
+ * Follows SubscribeState natively, unlocking the wallet as soon as lnd can
+ * accept the password and completing once the server is active, or failing
+ * if it is not active within the timeout.
+ */
+public class LndUnlocker implements RecvStream {
+    private static final String TAG = "LndUnlocker";
+    private static final long UNLOCK_TIMEOUT = 120;
+    private static final ScheduledExecutorService timeoutExecutor = Executors.newSingleThreadScheduledExecutor(
+            runnable -> new Thread(runnable, "lnd-unlock-timeout"));
+
+    final CompletableFuture<Void> future = new CompletableFuture<>();
+
+    private final byte[] unlockRequest;
+    private final LndStartup startup;
+    private final Executor executor;
+    private Stateservice.WalletState state;
+    private Stateservice.WalletState unlockState;
+    private boolean unlockSent;
+
+    LndUnlocker(byte[] unlockRequest, LndStartup startup, Executor executor) {
+        this.unlockRequest = unlockRequest;
+        this.startup = startup;
+        this.executor = executor;
+    }
+
+    CompletableFuture<Void> start() {
+        ScheduledFuture<?> timeout = timeoutExecutor.schedule(() -> {
+            if (future.completeExceptionally(new TimeoutException("Server not active after " + UNLOCK_TIMEOUT + "s"))) {
+                Log.e(TAG, "Timed out waiting for the server, last state " + state);
+            }
+        }, UNLOCK_TIMEOUT, TimeUnit.SECONDS);
+
+        future.whenComplete((ignored, e) -> timeout.cancel(false));
+        Lndmobile.subscribeState(Stateservice.SubscribeStateRequest.newBuilder().build().toByteArray(), this);
+        return future;
+    }
+
+    @Override
+    public void onError(Exception e) {
+        // The state stream ends once the server is active, which has already completed the future
+        if (future.completeExceptionally(e)) {
+            Log.e(TAG, "State subscription failed", e);
+        }
+    }
+
+    @Override
+    public synchronized void onResponse(byte[] bytes) {
+        if (future.isDone()) {
+            return;
+        }
+
+        try {
+            state = Stateservice.SubscribeStateResponse.parseFrom(bytes != null ? bytes : new byte[0]).getState();
+        } catch (InvalidProtocolBufferException e) {
+            future.completeExceptionally(e);
+            return;
+        }
+
+        Log.i(TAG, "Wallet state " + state);
+
+        switch (state) {
+            case WAITING_TO_START:
+            case LOCKED:
+                startup.markPhase("locked");
+                unlock();
+                break;
+            case NON_EXISTING:
+                future.completeExceptionally(new IllegalStateException("Wallet does not exist"));
+                break;
+            case UNLOCKED:
+                startup.markPhase("unlocked");
+                break;
+            case RPC_ACTIVE:
+                startup.markPhase("rpcActive");
+                break;
+            case SERVER_ACTIVE:
+                startup.markPhase("serverActive");
+                future.complete(null);
+                break;
+        }
+    }
+
+    private void unlock() {
+        if (unlockSent) {
+            return;
+        }
+
+        unlockSent = true;
+        unlockState = state;
+
+        LndMetrics metrics = LndMetrics.get("UnlockWallet");
+        long startedAt = metrics.begin();
+        metrics.recordRequest(unlockRequest.length);
+
+        // Leave the Go callback thread before calling back into lnd
+        executor.execute(() -> Lndmobile.unlockWallet(unlockRequest, new Callback() {
+            @Override
+            public void onError(Exception e) {
+                metrics.end(startedAt, 0, true);
+                onUnlockError(e);
+            }
+
+            @Override
+            public void onResponse(byte[] bytes) {
+                metrics.end(startedAt, bytes != null ? bytes.length : 0, false);
+                startup.markPhase("walletUnlocked");
+            }
+        }));
+    }
+
+    private synchronized void onUnlockError(Exception e) {
+        String message = e.getLocalizedMessage();
+
+        if (message != null && message.contains("already unlocked")) {
+            // Unlocked elsewhere, keep waiting for the server
+            Log.i(TAG, "Wallet already unlocked");
+        } else if (unlockState == Stateservice.WalletState.WAITING_TO_START) {
+            // The unlocker was not ready yet, try again once lnd reports LOCKED
+            Log.w(TAG, "Unlock before LOCKED failed, retrying", e);
+            unlockSent = false;
+
+            if (state == Stateservice.WalletState.LOCKED) {
+                unlock();
+            }
+        } else {
+            future.completeExceptionally(e);
+        }
+    }
+}
@@ -1,28 +1,36 @@
 package com.satimoto;
 
+import android.content.Context;
 import android.os.FileObserver;
 
 import android.util.Log;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
+import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReactMethod;
 import com.facebook.react.bridge.ReactContextBaseJavaModule;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableArray;
 import com.facebook.react.modules.core.DeviceEventManagerModule;
 
-public class LndUtils extends ReactContextBaseJavaModule {
-    final String TAG = "LndUtils";
+public class LndUtils extends ReactContextBaseJavaModule implements LndLogListener {
+    static final String TAG = "LndUtils";
     private static final String logEventName = "logEvent";
+    private static final int LOG_EVENTS = FileObserver.CREATE | FileObserver.MODIFY | FileObserver.CLOSE_WRITE
+            | FileObserver.MOVED_FROM | FileObserver.MOVED_TO | FileObserver.DELETE;
 
     private FileObserver logObserver;
+    private final LndLogTailer logTailer;
+    private long logInterval = 1000;
     final String confPath;
     final String lndPath;
     final String logPath;
@@ -30,11 +38,24 @@ public class LndUtils extends ReactContextBaseJavaModule {
     public LndUtils(ReactApplicationContext reactContext) {
         super(reactContext);
 
-        lndPath = getReactApplicationContext().getFilesDir().toString();
-        confPath = lndPath + "/lnd_v5.conf";
-        logPath = lndPath + "/logs/bitcoin/" + BuildConfig.NETWORK + "/lnd.log";
+        lndPath = lndPath(reactContext);
+        confPath = confPath(lndPath);
+        logPath = logPath(lndPath);
 
         prepareFileDirectory(logPath);
+        logTailer = new LndLogTailer(logPath, this);
+    }
+
+    static String lndPath(Context context) {
+        return context.getFilesDir().toString();
+    }
+
+    static String confPath(String lndPath) {
+        return lndPath + "/lnd_v5.conf";
+    }
+
+    static String logPath(String lndPath) {
+        return lndPath + "/logs/bitcoin/" + BuildConfig.NETWORK + "/lnd.log";
     }
 
     @Override
@@ -48,19 +69,55 @@ public class LndUtils extends ReactContextBaseJavaModule {
     @ReactMethod
     public void removeListeners(Integer count) {}
 
-    private void prepareFileDirectory(String filename) {
+    private static void prepareFileDirectory(String filename) {
         new File(filename).getParentFile().mkdirs();
     }
 
-    private PrintWriter getPrintWriter(String filename) throws Exception {
-        prepareFileDirectory(filename);
-        return new PrintWriter(filename);
+    static String overridesPath(String lndPath) {
+        return lndPath + "/lnd_overrides.conf";
+    }
+
+    // The default conf for this network with the saved JS overrides merged in
+    static LndConf conf(String lndPath) throws IOException {
+        LndConf conf = LndConf.defaults(BuildConfig.NETWORK);
+        File overrides = new File(overridesPath(lndPath));
+
+        if (overrides.exists()) {
+            conf.merge(readOverrides(lndPath));
+        }
+
+        return conf;
+    }
+
+    // Returns false when the conf on disk already matches, saving a write on every start
+    static boolean writeConfIfChanged(String lndPath) throws IOException {
+        return conf(lndPath).writeIfChanged(confPath(lndPath));
+    }
+
+    private static LndConf readOverrides(String lndPath) throws IOException {
+        File file = new File(overridesPath(lndPath));
+        byte[] bytes = new byte[(int) file.length()];
+
+        try (FileInputStream inputStream = new FileInputStream(file)) {
+            int offset = 0;
+            int read;
+
+            while (offset < bytes.length && (read = inputStream.read(bytes, offset, bytes.length - offset)) > 0) {
+                offset += read;
+            }
+        }
+
+        return LndConf.parse(new String(bytes, StandardCharsets.UTF_8));
+    }
+
+    private void writeOverrides(LndConf overrides) throws IOException {
+        LndConf.writeIfChanged(overridesPath(lndPath), overrides.toString().getBytes(StandardCharsets.UTF_8));
+        writeConfIfChanged(lndPath);
     }
 
+    // Keys in the content replace the same keys of the default conf, other keys keep their defaults
     void writeConf(String content) throws Exception {
-        PrintWriter writer = getPrintWriter(confPath);
-        writer.println(content);
-        writer.close();
+        writeOverrides(LndConf.parse(content));
     }
 
     @ReactMethod
@@ -77,133 +134,36 @@ public class LndUtils extends ReactContextBaseJavaModule {
         promise.resolve("Saved LND conf to: " + confPath);
     }
 
-    void writeDefaultConf() throws Exception {
-        PrintWriter writer = getPrintWriter(confPath);
-
-        if (BuildConfig.NETWORK.equals("mainnet")) {
-            writer.println(
-                    "[Application Options]\n" +
-                            "debuglevel=warn\n" +
-                            "maxbackoff=2s\n" +
-                            "nobootstrap=1\n" + 
-                            "nolisten=1\n" +
-                            "norest=1\n" +
-                            "sync-freelist=1\n" +
-                            "accept-keysend=1\n" +
-                            "feeurl=https://nodes.lightning.computer/fees/v1/btc-fee-estimates.json\n" +
-                            "tlsdisableautofill=1\n" +
-                            "gc-canceled-invoices-on-startup=1\n" +
-                            "gc-canceled-invoices-on-the-fly=1\n" +
-                            "ignore-historical-gossip-filters=1\n" +
-                            "\n" +
-                            "[Bitcoin]\n" +
-                            "bitcoin.active=1\n" +
-                            "bitcoin.mainnet=1\n" +
-                            "bitcoin.node=neutrino\n" +
-                            "\n" +
-                            "[Neutrino]\n" +
-                            "neutrino.addpeer=btcd-mainnet.lightning.computer\n" +
-                            "neutrino.addpeer=mainnet1-btcd.zaphq.io\n" +
-                            "neutrino.addpeer=mainnet2-btcd.zaphq.io\n" +
-                            "neutrino.addpeer=mainnet3-btcd.zaphq.io\n" +
-                            "neutrino.addpeer=mainnet4-btcd.zaphq.io\n" +
-                            "neutrino.addpeer=bb2.breez.technology\n" +
-                            "neutrino.validatechannels=false\n" +
-                            "\n" +
-                            "[protocol]\n" +
-                            "protocol.option-scid-alias=true\n" +
-                            "protocol.zero-conf=true\n" +
-                            "\n" +
-                            "[autopilot]\n" +
-                            "autopilot.active=0\n" +
-                            "autopilot.private=0\n" +
-                            "autopilot.minconfs=0\n" +
-                            "autopilot.conftarget=30\n" +
-                            "autopilot.allocation=1.0\n" +
-                            "autopilot.heuristic=externalscore:0.95\n" +
-                            "autopilot.heuristic=preferential:0.05\n"
-            );
-        } else if (BuildConfig.NETWORK.equals("testnet")) {
-            writer.println(
-                    "[Application Options]\n" +
-                            "debuglevel=info\n" +
-                            "maxbackoff=2s\n" +
-                            "nobootstrap=1\n" + 
-                            "nolisten=1\n" +
-                            "norest=1\n" +
-                            "sync-freelist=1\n" +
-                            "accept-keysend=1\n" +
-                            "feeurl=https://nodes.lightning.computer/fees/v1/btc-fee-estimates.json\n" +
-                            "tlsdisableautofill=1\n" +
-                            "gc-canceled-invoices-on-startup=1\n" +
-                            "gc-canceled-invoices-on-the-fly=1\n" +
-                            "ignore-historical-gossip-filters=1\n" +
-                            "\n" +
-                            "[Bitcoin]\n" +
-                            "bitcoin.active=1\n" +
-                            "bitcoin.testnet=1\n" +
-                            "bitcoin.node=neutrino\n" +
-                            "\n" +
-                            "[Neutrino]\n" +
-                            "neutrino.connect=faucet.lightning.community\n" +
-                            "neutrino.validatechannels=false\n" + 
-                            "\n" +
-                            "[protocol]\n" +
-                            "protocol.option-scid-alias=true\n" +
-                            "protocol.zero-conf=true\n" +
-                            "\n" +
-                            "[autopilot]\n" +
-                            "autopilot.active=0\n" +
-                            "autopilot.private=0\n" +
-                            "autopilot.minconfs=0\n" +
-                            "autopilot.conftarget=30\n" +
-                            "autopilot.allocation=1.0\n" +
-                            "autopilot.heuristic=externalscore:0.95\n" +
-                            "autopilot.heuristic=preferential:0.05\n"
-            );
-        } else if (BuildConfig.NETWORK.equals("regtest")) {
-            writer.println(
-                    "[Application Options]\n" +
-                            "debuglevel=info\n" +
-                            "maxbackoff=2s\n" +
-                            "nobootstrap=1\n" + 
-                            "nolisten=1\n" +
-                            "norest=1\n" +
-                            "sync-freelist=1\n" +
-                            "accept-keysend=1\n" +
-                            "tlsdisableautofill=1\n" +
-                            "gc-canceled-invoices-on-startup=1\n" +
-                            "gc-canceled-invoices-on-the-fly=1\n" +
-                            "ignore-historical-gossip-filters=1\n" +
-                            "\n" +
-                            "[Bitcoin]\n" +
-                            "bitcoin.active=1\n" +
-                            "bitcoin.regtest=1\n" +
-                            "bitcoin.node=bitcoind\n" +
-                            "\n" +
-                            "[Bitcoind]\n" +
-                            "bitcoind.rpchost=10.0.2.2:18449\n" +
-                            "bitcoind.rpcuser=polaruser\n" +
-                            "bitcoind.rpcpass=polarpass\n" +
-                            "bitcoind.zmqpubrawblock=tcp://10.0.2.2:28340\n" +
-                            "bitcoind.zmqpubrawtx=tcp://10.0.2.2:29341\n" +
-                            "\n" +
-                            "[protocol]\n" +
-                            "protocol.option-scid-alias=true\n" +
-                            "protocol.zero-conf=true\n" +
-                            "\n" +
-                            "[autopilot]\n" +
-                            "autopilot.active=0\n" +
-                            "autopilot.private=0\n" +
-                            "autopilot.minconfs=0\n" +
-                            "autopilot.conftarget=30\n" +
-                            "autopilot.allocation=1.0\n" +
-                            "autopilot.heuristic=externalscore:0.95\n" +
-                            "autopilot.heuristic=preferential:0.05\n"
-            );
+    // Merges {section: {key: value | [values] | null}} into the saved overrides, null restores the default
+    @ReactMethod
+    void mergeConf(ReadableMap options, Promise promise) {
+        try {
+            File file = new File(overridesPath(lndPath));
+            LndConf overrides = file.exists() ? readOverrides(lndPath) : new LndConf();
+            LndConf changes = LndConf.fromMap(options);
+
+            writeOverrides(overrides.merge(changes));
+            Log.d(TAG, "Saved LND conf to: " + confPath);
+        } catch (Exception e) {
+            Log.e(TAG, "Could not write to " + confPath, e);
+            promise.reject("Could not write to : " + confPath, e);
+            return;
         }
 
-        writer.close();
+        promise.resolve("Saved LND conf to: " + confPath);
+    }
+
+    @ReactMethod
+    void getConf(Promise promise) {
+        try {
+            promise.resolve(conf(lndPath).toString());
+        } catch (Exception e) {
+            promise.reject("error", e.getLocalizedMessage(), e);
+        }
+    }
+
+    void writeDefaultConf() throws Exception {
+        writeConfIfChanged(lndPath);
     }
 
     @ReactMethod
@@ -220,59 +180,115 @@ public class LndUtils extends ReactContextBaseJavaModule {
         promise.resolve("Saved LND conf to: " + confPath);
     }
 
-    void deleteLog() {
+    @ReactMethod
+    void searchLog(String pattern, double maxResults, Promise promise) {
+        Pattern compiled;
+
         try {
-            File file = new File(logPath);
-            file.delete();
-        } catch (Exception e) {
-            Log.e(TAG, "Error deleting log: " + logPath, e);
+            compiled = Pattern.compile(pattern);
+        } catch (PatternSyntaxException e) {
+            promise.reject("error", e.getLocalizedMessage(), e);
+            return;
         }
+
+        LndExecutor.execute(LndExecutor.Lane.LOW, promise, () -> {
+            try {
+                promise.resolve(LndLogFiles.search(logPath, compiled, Math.max(1, (int) maxResults)));
+            } catch (Exception e) {
+                Log.e(TAG, "Error searching log: " + logPath, e);
+                promise.reject("error", e.getLocalizedMessage(), e);
+            }
+        });
     }
 
     @ReactMethod
-    void startLogEvents(Promise promise) {
-        if (logObserver == null) {
-            FileInputStream fileInputStream = null;
+    void exportLogs(Promise promise) {
+        File exportFile = new File(getReactApplicationContext().getCacheDir(), "lnd-logs.gz");
 
+        LndExecutor.execute(LndExecutor.Lane.LOW, promise, () -> {
             try {
-                fileInputStream = new FileInputStream(logPath);
-            } catch (FileNotFoundException fnfe) {
-                Log.e(TAG, "Error initializing log events: " + logPath, fnfe);
-                promise.reject("Error initializing log events: " + logPath, fnfe);
-                return;
+                LndLogFiles.export(logPath, exportFile);
+                promise.resolve(exportFile.getAbsolutePath());
+            } catch (Exception e) {
+                Log.e(TAG, "Error exporting logs: " + exportFile, e);
+                exportFile.delete();
+                promise.reject("error", e.getLocalizedMessage(), e);
+            }
+        });
+    }
+
+    @ReactMethod
+    void configureLogEvents(ReadableMap options, Promise promise) {
+        try {
+            if (options.hasKey("level")) {
+                logTailer.setMinLevel(options.getString("level"));
             }
 
-            InputStreamReader inputStreamReader = new InputStreamReader(fileInputStream);
-            BufferedReader bufferedReader = new BufferedReader(inputStreamReader);
+            if (options.hasKey("bufferSize")) {
+                logTailer.setBufferSize((int) options.getDouble("bufferSize"));
+            }
+
+            if (options.hasKey("maxBatchSize")) {
+                logTailer.setMaxBatchSize((int) options.getDouble("maxBatchSize"));
+            }
 
-            logObserver = new FileObserver(logPath) {
+            if (options.hasKey("interval")) {
+                logInterval = Math.max(100, (long) options.getDouble("interval"));
+            }
+        } catch (IllegalArgumentException e) {
+            promise.reject("error", e.getLocalizedMessage(), e);
+            return;
+        }
+
+        promise.resolve("Log events configured");
+    }
+
+    @ReactMethod
+    void startLogEvents(Promise promise) {
+        if (logObserver == null) {
+            File logFile = new File(logPath);
+            String logName = logFile.getName();
+            prepareFileDirectory(logPath);
+
+            // Watch the directory so deletes and rotations of lnd.log are seen
+            logObserver = new FileObserver(logFile.getParent(), LOG_EVENTS) {
                 @Override
                 public void onEvent(int event, String file) {
-                    if (event != FileObserver.MODIFY) {
-                        return;
-                    }
-
-                    try {
-                        emitLogEvent(bufferedReader);
-                    } catch (IOException ioe) {
-                        Log.e(TAG, "Error emitting log event", ioe);
+                    if (logName.equals(file)) {
+                        logTailer.onModified();
                     }
                 }
             };
 
             Log.i(TAG, "Log events started");
             logObserver.startWatching();
+            logTailer.start(logInterval);
         }
 
         promise.resolve("Log events started");
     }
 
-    private void emitLogEvent(BufferedReader bufferedReader) throws IOException {
-        String lines = "";
-        while ((lines = bufferedReader.readLine()) != null) {
-            getReactApplicationContext()
-                    .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
-                    .emit(logEventName, lines);
+    @ReactMethod
+    void getRecentLogs(Promise promise) {
+        WritableArray lines = Arguments.createArray();
+
+        for (String line : logTailer.getRecent()) {
+            lines.pushString(line);
         }
+
+        promise.resolve(lines);
+    }
+
+    @Override
+    public void onLogLines(List<String> lines) {
+        WritableArray params = Arguments.createArray();
+
+        for (String line : lines) {
+            params.pushString(line);
+        }
+
+        getReactApplicationContext()
+                .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
+                .emit(logEventName, params);
     }
-}
\ No newline at end of file
+}
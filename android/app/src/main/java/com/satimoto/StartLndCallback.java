@@ -2,19 +2,25 @@ package com.satimoto;
 
 import android.util.Base64;
 
-import com.facebook.react.bridge.Promise;
+import java.util.concurrent.CompletableFuture;
 
-public class StartLndCallback extends LndCallback {
-    StartLndCallback(Promise promise) {
-        super(promise);
+import lndmobile.Callback;
+
+public class StartLndCallback implements Callback {
+    CompletableFuture<String> future;
+
+    StartLndCallback(CompletableFuture<String> future) {
+        this.future = future;
     }
 
     @Override
     public void onError(Exception e) {
-        if (e.getLocalizedMessage().contains("already started")) {
-            promise.resolve("lnd already started");
+        String message = e.getLocalizedMessage();
+
+        if (message != null && message.contains("already started")) {
+            future.complete("lnd already started");
         } else {
-            promise.reject("error", e);
+            future.completeExceptionally(e);
         }
     }
 
@@ -25,6 +31,6 @@ public class StartLndCallback extends LndCallback {
             base64Data = Base64.encodeToString(bytes, Base64.NO_WRAP);
         }
 
-        promise.resolve(base64Data);
+        future.complete(base64Data);
     }
 }
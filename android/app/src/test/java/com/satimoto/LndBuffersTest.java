@@ -0,0 +1,166 @@
+package com.satimoto;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Locale;
+
+import lnrpc.LightningOuterClass;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class LndBuffersTest {
+    private static final int GRAPH_NODES = 10000;
+    private static final int GRAPH_EDGES = 40000;
+    private static final int ROUNDS = 10;
+
+    private interface Transport {
+        byte[] roundTrip(byte[] bytes);
+    }
+
+    private static byte[] channelGraph() {
+        LightningOuterClass.ChannelGraph.Builder graph = LightningOuterClass.ChannelGraph.newBuilder();
+
+        for (int i = 0; i < GRAPH_NODES; i++) {
+            graph.addNodes(LightningOuterClass.LightningNode.newBuilder()
+                    .setLastUpdate(1700000000 + i)
+                    .setPubKey(pubkey(i))
+                    .setAlias("node-" + i)
+                    .setColor("#3399ff")
+                    .addAddresses(LightningOuterClass.NodeAddress.newBuilder()
+                            .setNetwork("tcp")
+                            .setAddr("10.0." + (i / 256) % 256 + "." + i % 256 + ":9735")
+                            .build())
+                    .build());
+        }
+
+        for (int i = 0; i < GRAPH_EDGES; i++) {
+            graph.addEdges(LightningOuterClass.ChannelEdge.newBuilder()
+                    .setChannelId(800000L << 40 | i)
+                    .setChanPoint(pubkey(i) + ":" + i % 4)
+                    .setNode1Pub(pubkey(i % GRAPH_NODES))
+                    .setNode2Pub(pubkey((i * 7 + 1) % GRAPH_NODES))
+                    .setCapacity(1000000 + i)
+                    .setNode1Policy(policy(i))
+                    .setNode2Policy(policy(i + 1))
+                    .build());
+        }
+
+        return graph.build().toByteArray();
+    }
+
+    private static LightningOuterClass.RoutingPolicy policy(int i) {
+        return LightningOuterClass.RoutingPolicy.newBuilder()
+                .setTimeLockDelta(40 + i % 100)
+                .setMinHtlc(1000)
+                .setFeeBaseMsat(1000)
+                .setFeeRateMilliMsat(i % 5000)
+                .setMaxHtlcMsat(990000000)
+                .setLastUpdate(1700000000 + i)
+                .build();
+    }
+
+    private static String pubkey(int i) {
+        return String.format(Locale.ROOT, "02%064x", i);
+    }
+
+    @Test
+    public void replayToLateSubscriberAddsTaker() {
+        byte[] state = {8, 3};
+        LndBuffers.share(state);
+
+        // Emitted to the first subscriber, then replayed to one that joined after the message
+        int bufferId = LndBuffers.store(state);
+        assertEquals(bufferId, LndBuffers.store(state));
+
+        assertSame(state, LndBuffers.take(bufferId));
+        assertSame(state, LndBuffers.take(bufferId));
+        assertNull(LndBuffers.take(bufferId));
+    }
+
+    @Test
+    public void subscriberThatDroppedMessageIsNotCounted() {
+        byte[] message = {1, 2, 3};
+        LndBuffers.share(message);
+
+        // Shared with two subscribers, one of which dropped it from its queue
+        int bufferId = LndBuffers.store(message);
+
+        assertNotNull(LndBuffers.take(bufferId));
+        assertNull(LndBuffers.take(bufferId));
+    }
+
+    @Test
+    public void sharedMessageIsStoredAgainOnceTaken() {
+        byte[] state = {8, 4};
+        LndBuffers.share(state);
+
+        int bufferId = LndBuffers.store(state);
+        assertSame(state, LndBuffers.take(bufferId));
+
+        // A replay after every taker took the message gets a new buffer
+        int replayId = LndBuffers.store(state);
+        assertTrue(replayId != bufferId);
+        assertSame(state, LndBuffers.take(replayId));
+        assertNull(LndBuffers.take(replayId));
+    }
+
+    // Bytes handed to JS through a buffer id or a Base64 string, including the copy or decode on the JS side
+    @Test
+    public void benchmarkChannelGraphTransport() {
+        byte[] graph = channelGraph();
+
+        // android.util.Base64 is not available on the JVM, java.util.Base64 does the same work
+        Transport base64 = bytes -> Base64.getDecoder().decode(Base64.getEncoder().encodeToString(bytes));
+        Transport buffers = bytes -> {
+            byte[] taken = LndBuffers.take(LndBuffers.store(bytes));
+            // The JSI binding copies the bytes into an ArrayBuffer
+            return Arrays.copyOf(taken, taken.length);
+        };
+
+        long base64Allocated = measure("Base64", base64, graph);
+        long buffersAllocated = measure("Buffers", buffers, graph);
+
+        if (base64Allocated >= 0 && buffersAllocated >= 0) {
+            assertTrue(buffersAllocated < base64Allocated);
+        }
+    }
+
+    // Prints the throughput and returns the bytes allocated per response, or -1 if the JVM cannot tell
+    private static long measure(String name, Transport transport, byte[] graph) {
+        for (int i = 0; i < ROUNDS; i++) {
+            assertTrue(Arrays.equals(graph, transport.roundTrip(graph)));
+        }
+
+        long allocatedBefore = allocatedBytes();
+        long startedAt = System.nanoTime();
+
+        for (int i = 0; i < ROUNDS; i++) {
+            transport.roundTrip(graph);
+        }
+
+        long nanos = System.nanoTime() - startedAt;
+        long allocated = allocatedBefore >= 0 ? (allocatedBytes() - allocatedBefore) / ROUNDS : -1;
+
+        System.out.printf(Locale.ROOT, "%s: %.2f MB ChannelGraph, %.0f MB/s, %.2f MB allocated per response%n", name,
+                graph.length / 1e6, graph.length * (double) ROUNDS / nanos * 1e3, allocated / 1e6);
+
+        return allocated;
+    }
+
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+
+        return -1;
+    }
+}
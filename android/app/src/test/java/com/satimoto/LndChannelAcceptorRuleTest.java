@@ -0,0 +1,144 @@
+package com.satimoto;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class LndChannelAcceptorRuleTest {
+    private static final String PUBKEY = "02aaaa";
+    private static final String OTHER_PUBKEY = "03bbbb";
+
+    private static LndChannelAcceptorRule rule(String pubkey) {
+        LndChannelAcceptorRule rule = new LndChannelAcceptorRule();
+        rule.pubkey = pubkey;
+        return rule;
+    }
+
+    private static LndChannelAcceptorRule.Decision evaluate(List<LndChannelAcceptorRule> rules, String pubkey, long fundingAmt) {
+        return LndChannelAcceptorRule.evaluate(rules, pubkey, fundingAmt, false, false, false);
+    }
+
+    @Test
+    public void pubkeyRuleTakesPrecedence() {
+        LndChannelAcceptorRule fallback = rule(null);
+        fallback.minCapacity = 1000000;
+        LndChannelAcceptorRule peer = rule(PUBKEY);
+
+        // The pubkey rule matches even when it comes after the fallback
+        LndChannelAcceptorRule.Decision decision = evaluate(Arrays.asList(fallback, peer), PUBKEY, 20000);
+
+        assertTrue(decision.accept);
+        assertNull(decision.error);
+    }
+
+    @Test
+    public void fallsBackToRuleWithoutPubkey() {
+        LndChannelAcceptorRule fallback = rule(null);
+        fallback.minCapacity = 1000000;
+        List<LndChannelAcceptorRule> rules = Arrays.asList(rule(PUBKEY), fallback);
+
+        assertFalse(evaluate(rules, OTHER_PUBKEY, 20000).accept);
+        assertTrue(evaluate(rules, OTHER_PUBKEY, 1000000).accept);
+    }
+
+    @Test
+    public void firstFallbackWins() {
+        LndChannelAcceptorRule first = rule(null);
+        LndChannelAcceptorRule second = rule(null);
+        second.minCapacity = 1000000;
+
+        assertTrue(evaluate(Arrays.asList(first, second), OTHER_PUBKEY, 20000).accept);
+    }
+
+    @Test
+    public void rejectsBelowMinCapacity() {
+        LndChannelAcceptorRule rule = rule(null);
+        rule.minCapacity = 50000;
+        List<LndChannelAcceptorRule> rules = Collections.singletonList(rule);
+
+        LndChannelAcceptorRule.Decision decision = evaluate(rules, PUBKEY, 49999);
+
+        assertFalse(decision.accept);
+        assertEquals("channel capacity below 50000", decision.error);
+        assertTrue(evaluate(rules, PUBKEY, 50000).accept);
+    }
+
+    @Test
+    public void rejectsAboveMaxCapacity() {
+        LndChannelAcceptorRule rule = rule(null);
+        rule.maxCapacity = 50000;
+        List<LndChannelAcceptorRule> rules = Collections.singletonList(rule);
+
+        LndChannelAcceptorRule.Decision decision = evaluate(rules, PUBKEY, 50001);
+
+        assertFalse(decision.accept);
+        assertEquals("channel capacity above 50000", decision.error);
+        assertTrue(evaluate(rules, PUBKEY, 50000).accept);
+    }
+
+    @Test
+    public void zeroMaxCapacityIsUnbounded() {
+        assertTrue(evaluate(Collections.singletonList(rule(null)), PUBKEY, Long.MAX_VALUE).accept);
+    }
+
+    @Test
+    public void privateOnlyRejectsAnnouncedChannels() {
+        LndChannelAcceptorRule rule = rule(null);
+        rule.privateOnly = true;
+        List<LndChannelAcceptorRule> rules = Collections.singletonList(rule);
+
+        LndChannelAcceptorRule.Decision decision = LndChannelAcceptorRule.evaluate(rules, PUBKEY, 20000, true, false, false);
+
+        assertFalse(decision.accept);
+        assertEquals("only private channels are accepted", decision.error);
+        assertTrue(LndChannelAcceptorRule.evaluate(rules, PUBKEY, 20000, false, false, false).accept);
+    }
+
+    @Test
+    public void zeroConfNeedsToBeAllowed() {
+        LndChannelAcceptorRule rule = rule(null);
+        List<LndChannelAcceptorRule> rules = Collections.singletonList(rule);
+
+        LndChannelAcceptorRule.Decision rejected = LndChannelAcceptorRule.evaluate(rules, PUBKEY, 20000, false, true, true);
+
+        assertFalse(rejected.accept);
+        assertEquals("zero-conf channels are not accepted", rejected.error);
+
+        rule.allowZeroConf = true;
+        LndChannelAcceptorRule.Decision accepted = LndChannelAcceptorRule.evaluate(rules, PUBKEY, 20000, false, true, true);
+
+        assertTrue(accepted.accept);
+        assertTrue(accepted.zeroConf);
+        assertFalse(evaluate(rules, PUBKEY, 20000).zeroConf);
+    }
+
+    @Test
+    public void scidAliasCanBeDisallowed() {
+        LndChannelAcceptorRule rule = rule(null);
+        List<LndChannelAcceptorRule> rules = Collections.singletonList(rule);
+
+        assertTrue(LndChannelAcceptorRule.evaluate(rules, PUBKEY, 20000, false, false, true).accept);
+
+        rule.allowScidAlias = false;
+        LndChannelAcceptorRule.Decision decision = LndChannelAcceptorRule.evaluate(rules, PUBKEY, 20000, false, false, true);
+
+        assertFalse(decision.accept);
+        assertEquals("scid-alias channels are not accepted", decision.error);
+    }
+
+    @Test
+    public void rejectsWithoutMatchingRule() {
+        LndChannelAcceptorRule.Decision decision = evaluate(Collections.singletonList(rule(PUBKEY)), OTHER_PUBKEY, 20000);
+
+        assertFalse(decision.accept);
+        assertEquals("channel not expected", decision.error);
+        assertFalse(evaluate(Collections.emptyList(), PUBKEY, 20000).accept);
+    }
+}
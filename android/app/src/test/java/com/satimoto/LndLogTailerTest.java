@@ -0,0 +1,186 @@
+package com.satimoto;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LndLogTailerTest {
+    private static final long TIMEOUT = 10000;
+
+    private File directory;
+    private String path;
+    private final List<String> lines = new ArrayList<>();
+    private LndLogTailer tailer;
+
+    // android.system.Os is not available on the JVM, so inodes are read through the file system
+    private static class JvmLogTailer extends LndLogTailer {
+        private final String path;
+
+        JvmLogTailer(String path, LndLogListener listener) {
+            super(path, listener);
+            this.path = path;
+        }
+
+        @Override
+        long inodeOf(String path) {
+            try {
+                return ((Number) Files.getAttribute(Paths.get(path), "unix:ino")).longValue();
+            } catch (IOException e) {
+                return -1;
+            }
+        }
+
+        @Override
+        long inodeOf(FileInputStream inputStream) throws IOException {
+            long inode = inodeOf(path);
+
+            if (inode < 0) {
+                throw new IOException("Could not stat log");
+            }
+
+            return inode;
+        }
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("lnd-log").toFile();
+        path = new File(directory, "lnd.log").getPath();
+        tailer = new JvmLogTailer(path, batch -> {
+            synchronized (lines) {
+                lines.addAll(batch);
+            }
+        });
+        tailer.setMaxBatchSize(Integer.MAX_VALUE);
+        tailer.start(10);
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = directory.listFiles();
+
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+
+        directory.delete();
+    }
+
+    @Test
+    public void readsEveryLineAcrossRotations() throws Exception {
+        int rotations = 4;
+        int linesPerFile = 5000;
+        int written = 0;
+
+        for (int rotation = 0; rotation <= rotations; rotation++) {
+            if (rotation > 0) {
+                // The tailer has to have the current file open for it to finish reading it after the rename
+                awaitLines(written - linesPerFile + 1);
+                assertTrue(new File(path).renameTo(new File(directory, "lnd." + rotation + ".log")));
+            }
+
+            try (OutputStream outputStream = new FileOutputStream(path, true)) {
+                for (int i = 0; i < linesPerFile; i++) {
+                    outputStream.write(line(written++));
+
+                    if (i % 250 == 0) {
+                        outputStream.flush();
+                        tailer.onModified();
+                    }
+                }
+            }
+
+            tailer.onModified();
+        }
+
+        awaitLines(written);
+        assertLines(0, written);
+    }
+
+    @Test
+    public void readsFromStartAfterTruncation() throws Exception {
+        try (OutputStream outputStream = new FileOutputStream(path, true)) {
+            for (int i = 0; i < 2000; i++) {
+                outputStream.write(line(i));
+
+                if (i % 100 == 0) {
+                    tailer.onModified();
+                }
+            }
+        }
+
+        tailer.onModified();
+        awaitLines(2000);
+
+        // Truncates in place, keeping the inode
+        try (OutputStream outputStream = new FileOutputStream(path, false)) {
+            for (int i = 2000; i < 2100; i++) {
+                outputStream.write(line(i));
+            }
+        }
+
+        tailer.onModified();
+        awaitLines(2100);
+        assertLines(0, 2100);
+    }
+
+    @Test
+    public void dropsLinesBelowTheLevel() throws Exception {
+        try (OutputStream outputStream = new FileOutputStream(path, true)) {
+            outputStream.write("2023-01-02 15:04:05.000 [DBG] LTND: debug\n".getBytes(StandardCharsets.UTF_8));
+            outputStream.write(line(0));
+        }
+
+        tailer.onModified();
+        awaitLines(1);
+        assertLines(0, 1);
+    }
+
+    private static byte[] line(int number) {
+        return ("2023-01-02 15:04:05.000 [INF] LTND: line " + number + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private void awaitLines(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+
+        while (System.currentTimeMillis() < deadline) {
+            synchronized (lines) {
+                if (lines.size() >= count) {
+                    return;
+                }
+            }
+
+            Thread.sleep(5);
+        }
+
+        synchronized (lines) {
+            assertTrue("Received " + lines.size() + " of " + count + " lines", lines.size() >= count);
+        }
+    }
+
+    private void assertLines(int first, int count) {
+        synchronized (lines) {
+            assertEquals(count, lines.size());
+
+            for (int i = 0; i < count; i++) {
+                assertEquals("2023-01-02 15:04:05.000 [INF] LTND: line " + (first + i), lines.get(i));
+            }
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.satimoto;
+
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+
+import lndmobile.Callback;
+import lndmobile.RecvStream;
+import lndmobile.SendStream;
+
+import static org.junit.Assert.assertEquals;
+
+public class LndMobileDispatchTest {
+    private static final int GET_INFO_SIZE = 512;
+    private static final int WARMUP_CALLS = 200000;
+    private static final int CALLS = 2000000;
+
+    // Stands in for the native Lndmobile, which cannot be loaded on the JVM
+    public static class FakeLndmobile {
+        static final byte[] response = new byte[GET_INFO_SIZE];
+
+        public static void getInfo(byte[] msg, Callback callback) {
+            callback.onResponse(response);
+        }
+    }
+
+    private static class CountingCallback implements Callback {
+        long bytes;
+
+        @Override
+        public void onError(Exception e) {
+            throw new IllegalStateException(e);
+        }
+
+        @Override
+        public void onResponse(byte[] bytes) {
+            this.bytes += bytes.length;
+        }
+    }
+
+    @Test
+    public void mapsEveryLndmobileMethod() throws Exception {
+        // Inspects the API without initializing the class, which would load the Go library
+        Class<?> lndmobile = Class.forName("lndmobile.Lndmobile", false, getClass().getClassLoader());
+        TreeSet<String> sync = new TreeSet<>();
+        TreeSet<String> recvStream = new TreeSet<>();
+        TreeSet<String> biStream = new TreeSet<>();
+
+        for (Method method : lndmobile.getDeclaredMethods()) {
+            if (!Modifier.isStatic(method.getModifiers()) || !Modifier.isPublic(method.getModifiers())) {
+                continue;
+            }
+
+            String name = method.getName().substring(0, 1).toUpperCase(Locale.ROOT) + method.getName().substring(1);
+            Class<?>[] params = method.getParameterTypes();
+
+            if (Arrays.equals(params, new Class<?>[]{byte[].class, Callback.class})) {
+                sync.add(name);
+            } else if (Arrays.equals(params, new Class<?>[]{byte[].class, RecvStream.class})) {
+                recvStream.add(name);
+            } else if (Arrays.equals(params, new Class<?>[]{RecvStream.class}) && method.getReturnType() == SendStream.class) {
+                biStream.add(name);
+            }
+        }
+
+        assertEquals(sync, new TreeSet<>(LndMobileDispatch.syncMethods.keySet()));
+        assertEquals(recvStream, new TreeSet<>(LndMobileDispatch.recvStreamMethods.keySet()));
+        assertEquals(biStream, new TreeSet<>(LndMobileDispatch.biStreamMethods.keySet()));
+    }
+
+    // Compares the generated method references with the Method.invoke dispatch they replaced
+    @Test
+    public void benchmarkAgainstReflection() throws Exception {
+        Map<String, Method> reflectionMethods = new HashMap<>();
+        for (Method method : FakeLndmobile.class.getDeclaredMethods()) {
+            String name = method.getName();
+            reflectionMethods.put(name.substring(0, 1).toUpperCase(Locale.ROOT) + name.substring(1), method);
+        }
+
+        Map<String, LndSyncMethod> tableMethods = new HashMap<>();
+        tableMethods.put("GetInfo", FakeLndmobile::getInfo);
+
+        byte[] request = new byte[0];
+        CountingCallback reflectionCallback = new CountingCallback();
+        CountingCallback tableCallback = new CountingCallback();
+
+        for (int i = 0; i < WARMUP_CALLS; i++) {
+            reflectionMethods.get("GetInfo").invoke(null, request, reflectionCallback);
+            tableMethods.get("GetInfo").invoke(request, tableCallback);
+        }
+
+        long startedAt = System.nanoTime();
+        for (int i = 0; i < CALLS; i++) {
+            reflectionMethods.get("GetInfo").invoke(null, request, reflectionCallback);
+        }
+        long reflectionNanos = System.nanoTime() - startedAt;
+
+        startedAt = System.nanoTime();
+        for (int i = 0; i < CALLS; i++) {
+            tableMethods.get("GetInfo").invoke(request, tableCallback);
+        }
+        long tableNanos = System.nanoTime() - startedAt;
+
+        System.out.printf(Locale.ROOT, "GetInfo dispatch: reflection %.1f ns/call, table %.1f ns/call%n",
+                (double) reflectionNanos / CALLS, (double) tableNanos / CALLS);
+
+        assertEquals((long) (WARMUP_CALLS + CALLS) * GET_INFO_SIZE, reflectionCallback.bytes);
+        assertEquals(reflectionCallback.bytes, tableCallback.bytes);
+    }
+}
@@ -0,0 +1,134 @@
+package com.satimoto;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LndRecordLogTest {
+    private File directory;
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("lnd-history").toFile();
+        file = new File(directory, "invoices.log");
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = directory.listFiles();
+
+        if (files != null) {
+            for (File child : files) {
+                child.delete();
+            }
+        }
+
+        directory.delete();
+    }
+
+    private static LndRecordLog.Record record(int index, boolean pending, String data) {
+        return new LndRecordLog.Record("hash" + index, index, pending ? 0 : index, pending, data.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String data(LndRecordLog.Record record) {
+        return new String(record.data, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void pagesRecordsFromTheFile() throws IOException {
+        LndRecordLog log = new LndRecordLog(file);
+
+        for (int i = 1; i <= 10; i++) {
+            assertTrue(log.put(record(i, false, "invoice " + i)));
+        }
+
+        List<LndRecordLog.Record> page = log.page(3, 4, false);
+        assertEquals(4, page.size());
+        assertEquals(4, page.get(0).index);
+        assertEquals("invoice 7", data(page.get(3)));
+
+        List<LndRecordLog.Record> reversed = log.page(0, 2, true);
+        assertEquals(9, reversed.get(0).index);
+        assertEquals("invoice 10", data(reversed.get(1)));
+        log.close();
+    }
+
+    @Test
+    public void skipsUnchangedAndReadsUpdates() throws IOException {
+        LndRecordLog log = new LndRecordLog(file);
+
+        assertTrue(log.put(record(1, true, "open")));
+        assertFalse(log.put(record(1, true, "open")));
+        assertEquals(0, log.resumeIndex());
+
+        assertTrue(log.put(record(1, false, "settled")));
+        assertEquals("settled", data(log.page(0, 1, false).get(0)));
+        assertEquals(1, log.resumeIndex());
+        assertEquals(1, log.size());
+        log.close();
+    }
+
+    @Test
+    public void reopensAndDropsTornRecord() throws IOException {
+        LndRecordLog log = new LndRecordLog(file);
+
+        for (int i = 1; i <= 3; i++) {
+            log.put(record(i, i == 2, "invoice " + i));
+        }
+
+        log.close();
+
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            randomAccessFile.setLength(randomAccessFile.length() - 3);
+        }
+
+        log = new LndRecordLog(file);
+        assertEquals(2, log.size());
+        assertEquals(2, log.lastIndex());
+        assertEquals(1, log.resumeIndex());
+        assertEquals("invoice 2", data(log.page(1, 1, false).get(0)));
+
+        // Appends after the truncated record are read back
+        log.put(record(4, false, "invoice 4"));
+        assertEquals("invoice 4", data(log.page(2, 1, false).get(0)));
+        log.close();
+    }
+
+    @Test
+    public void compactsSupersededRecords() throws IOException {
+        LndRecordLog log = new LndRecordLog(file);
+
+        for (int round = 0; round < 10; round++) {
+            for (int i = 1; i <= 50; i++) {
+                log.put(record(i, false, "invoice " + i + " update " + round));
+            }
+        }
+
+        log.close();
+        long before = file.length();
+
+        log = new LndRecordLog(file);
+        assertTrue(file.length() < before);
+        assertEquals(50, log.size());
+        assertEquals("invoice 50 update 9", data(log.page(49, 1, false).get(0)));
+
+        log.put(record(51, false, "invoice 51"));
+        List<LndRecordLog.Record> page = log.page(0, 100, false);
+        assertEquals(51, page.size());
+        assertEquals("invoice 1 update 9", data(page.get(0)));
+        assertEquals("invoice 51", data(page.get(50)));
+        log.close();
+    }
+}
@@ -34,19 +34,58 @@ RCT_EXTERN_METHOD(
   rejecter: (RCTPromiseRejectBlock)reject
 )
 
+RCT_EXTERN_METHOD(
+  sendCommandBatch: (NSArray*)commands
+  resolver: (RCTPromiseResolveBlock)resolve
+  rejecter: (RCTPromiseRejectBlock)reject
+)
+
+RCT_EXTERN_METHOD(
+  sendCommandProjected: (NSString*)method
+  body: (NSString*)msg
+  fieldMask: (NSArray*)fieldMask
+  resolver: (RCTPromiseResolveBlock)resolve
+  rejecter: (RCTPromiseRejectBlock)reject
+)
+
+RCT_EXTERN_METHOD(
+  openCursor: (NSString*)method
+  body: (NSString*)msg
+  pageSize: (nonnull NSNumber*)pageSize
+  fieldMask: (NSArray*)fieldMask
+  resolver: (RCTPromiseResolveBlock)resolve
+  rejecter: (RCTPromiseRejectBlock)reject
+)
+
+RCT_EXTERN_METHOD(
+  nextPage: (nonnull NSNumber*)cursorId
+  resolver: (RCTPromiseResolveBlock)resolve
+  rejecter: (RCTPromiseRejectBlock)reject
+)
+
+RCT_EXTERN_METHOD(
+  closeCursor: (nonnull NSNumber*)cursorId
+)
+
+RCT_EXTERN_METHOD(
+  configureResponseCache: (NSDictionary*)ttls
+)
+
 RCT_EXTERN_METHOD(
   sendStreamCommand:(NSString*)method
-  streamId:(NSString*)streamId
   body:(NSString*)msg
+  options:(NSDictionary*)options
+  resolver: (RCTPromiseResolveBlock)resolve
+  rejecter: (RCTPromiseRejectBlock)reject
 )
 
 RCT_EXTERN_METHOD(
-  sendStreamWrite:(NSString*)streamId
+  sendStreamWrite:(nonnull NSNumber*)streamId
   body:(NSString*)msg
 )
 
 RCT_EXTERN_METHOD(
-  closeStream:(NSString*)streamId
+  closeStream:(nonnull NSNumber*)streamId
 )
 
 @end
@@ -13,9 +13,12 @@ typealias LndMobileRecvStreamMethod = (Data?, LndRecvStream) -> Void
 typealias LndMobileBiStreamMethod = (LndRecvStream, inout NSError?) -> LndmobileSendStreamProtocol?
 
 @objc(LndMobile)
-class LndMobile: RCTEventEmitter, LndStreamEventProtocol {
+class LndMobile: RCTEventEmitter, LndStreamEventProtocol, LndCursorEventProtocol {
   
-  var activeStreams: [String:LndmobileSendStreamProtocol] = [:]
+  var activeStreams: [Int64:LndmobileSendStreamProtocol] = [:]
+  var nextStreamId: Int64 = 0
+  var cursors: [Int64:LndCursor] = [:]
+  var nextCursorId: Int64 = 0
     
   static let syncMethods: [String:LndMobileSyncMethod] = [
     "AbandonChannel": { (msg: Data?, cb: LndCallback) in LndmobileAbandonChannel(msg, cb) },
@@ -200,10 +203,14 @@ class LndMobile: RCTEventEmitter, LndStreamEventProtocol {
     return false
   }
 
-  func onStreamClose(streamId: String) {
+  func onStreamClose(streamId: Int64) {
     self.activeStreams.removeValue(forKey: streamId)
   }
   
+  func onCursorClose(cursorId: Int64) {
+    self.cursors.removeValue(forKey: cursorId)
+  }
+  
   @objc(start:rejecter:)
   func start(_ resolve: @escaping RCTPromiseResolveBlock, rejecter reject: @escaping RCTPromiseRejectBlock) {
     let lndUtils = LndUtils()
@@ -284,11 +291,108 @@ class LndMobile: RCTEventEmitter, LndStreamEventProtocol {
     block?(bytes, LndCallback(resolver: resolve, rejecter: reject))
   }
   
-  @objc(sendStreamCommand:streamId:body:)
-  func sendStreamCommand(_ method: String, streamId: String, body msg: String) {
+  @objc(sendCommandBatch:resolver:rejecter:)
+  func sendCommandBatch(_ commands: NSArray, resolver resolve: @escaping RCTPromiseResolveBlock, rejecter reject: @escaping RCTPromiseRejectBlock) {
+    let group = DispatchGroup()
+    let lock = NSLock()
+    var results = [Any](repeating: [:], count: commands.count)
+    
+    for (index, item) in commands.enumerated() {
+      guard let command = item as? NSDictionary,
+            let method = command["method"] as? String,
+            let msg = command["msg"] as? String,
+            let block = LndMobile.syncMethods[method] else {
+        results[index] = ["code": "error", "error": "method not found"]
+        continue
+      }
+      
+      group.enter()
+      let callback = LndCallback(resolver: { value in
+        lock.lock()
+        results[index] = value ?? [:]
+        lock.unlock()
+        group.leave()
+      }, rejecter: { code, message, _ in
+        lock.lock()
+        results[index] = ["code": code ?? "error", "error": message ?? "unknown error"]
+        lock.unlock()
+        group.leave()
+      })
+      
+      block(Data(base64Encoded: msg, options: []), callback)
+    }
+    
+    group.notify(queue: .global()) {
+      resolve(results)
+    }
+  }
+  
+  @objc(sendCommandProjected:body:fieldMask:resolver:rejecter:)
+  func sendCommandProjected(_ method: String, body msg: String, fieldMask: NSArray, resolver resolve: @escaping RCTPromiseResolveBlock, rejecter reject: @escaping RCTPromiseRejectBlock) {
+    // The full response is a superset of the projection, so it decodes the same way in JS
+    sendCommand(method, body: msg, resolver: resolve, rejecter: reject)
+  }
+  
+  @objc(openCursor:body:pageSize:fieldMask:resolver:rejecter:)
+  func openCursor(_ method: String, body msg: String, pageSize: NSNumber, fieldMask: NSArray?, resolver resolve: @escaping RCTPromiseResolveBlock, rejecter reject: @escaping RCTPromiseRejectBlock) {
+    if LndMobile.syncMethods[method] == nil {
+      reject("error", "method not found: \(method)", nil)
+      return
+    }
+    
+    self.nextCursorId += 1
+    let cursorId = self.nextCursorId
+    
+    do {
+      let bytes = Data(base64Encoded: msg, options: []) ?? Data()
+      self.cursors[cursorId] = try LndCursor(cursorId: cursorId, method: method, request: bytes, pageSize: pageSize.uint64Value)
+    } catch {
+      reject("error", error.localizedDescription, error)
+      return
+    }
+    
+    resolve(cursorId)
+  }
+  
+  @objc(nextPage:resolver:rejecter:)
+  func nextPage(_ cursorId: NSNumber, resolver resolve: @escaping RCTPromiseResolveBlock, rejecter reject: @escaping RCTPromiseRejectBlock) {
+    guard let cursor = self.cursors[cursorId.int64Value] else {
+      reject("error", "cursor not found: \(cursorId)", nil)
+      return
+    }
+    
+    do {
+      let bytes = try cursor.pageRequest()
+      LndMobile.syncMethods[cursor.method]?(bytes, LndCursorCallback(cursor: cursor, callback: self, resolver: resolve, rejecter: reject))
+    } catch {
+      reject("error", error.localizedDescription, error)
+    }
+  }
+  
+  @objc(closeCursor:)
+  func closeCursor(_ cursorId: NSNumber) {
+    self.cursors.removeValue(forKey: cursorId.int64Value)
+  }
+  
+  @objc(configureResponseCache:)
+  func configureResponseCache(_ ttls: NSDictionary) {
+    // Responses are not cached on iOS
+  }
+  
+  @objc(sendStreamCommand:body:options:resolver:rejecter:)
+  func sendStreamCommand(_ method: String, body msg: String, options: NSDictionary?, resolver resolve: @escaping RCTPromiseResolveBlock, rejecter reject: @escaping RCTPromiseRejectBlock) {
+    if LndMobile.recvStreamMethods[method] == nil && LndMobile.biStreamMethods[method] == nil {
+      reject("error", "method not found: \(method)", nil)
+      return
+    }
+
+    self.nextStreamId += 1
+    let streamId = self.nextStreamId
     let recvStream = LndRecvStream(streamId: streamId, emitter: self, callback: self)
     let bytes = Data(base64Encoded: msg, options: [])
     let recvStreamBlock = LndMobile.recvStreamMethods[method]
+
+    resolve(streamId)
     
     if recvStreamBlock != nil {
       recvStreamBlock!(bytes, recvStream)
@@ -318,8 +422,8 @@ class LndMobile: RCTEventEmitter, LndStreamEventProtocol {
   }
   
   @objc(sendStreamWrite:body:)
-  func sendStreamWrite(_ streamId: String, body msg: String) {
-    let sendStream = self.activeStreams[streamId]
+  func sendStreamWrite(_ streamId: NSNumber, body msg: String) {
+    let sendStream = self.activeStreams[streamId.int64Value]
 
     if(sendStream != nil) {
       let bytes = Data(base64Encoded: msg, options: [])
@@ -332,11 +436,11 @@ class LndMobile: RCTEventEmitter, LndStreamEventProtocol {
   }
   
   @objc(closeStream:)
-  func closeStream(_ streamId: String) {
-    let sendStream = self.activeStreams[streamId]
+  func closeStream(_ streamId: NSNumber) {
+    let sendStream = self.activeStreams[streamId.int64Value]
 
     if(sendStream != nil) {
-      self.activeStreams.removeValue(forKey: streamId)
+      self.activeStreams.removeValue(forKey: streamId.int64Value)
       do {
         try sendStream!.stop()
       } catch {}
@@ -9,7 +9,11 @@ import Foundation
 import Lndmobile
 
 protocol LndStreamEventProtocol {
-  func onStreamClose(streamId: String)
+  func onStreamClose(streamId: Int64)
+}
+
+protocol LndCursorEventProtocol {
+  func onCursorClose(cursorId: Int64)
 }
 
 class LndCallback: NSObject, LndmobileCallbackProtocol {
@@ -47,13 +51,13 @@ class StartLndCallback: LndCallback {
 }
 
 class LndRecvStream: NSObject, LndmobileRecvStreamProtocol {
-  var streamId: String
+  var streamId: Int64
   var eventEmitter: RCTEventEmitter
   var callback: LndStreamEventProtocol
   
   static let streamEventName: String = "streamEvent";
   
-  init(streamId: String, emitter eventEmitter: RCTEventEmitter, callback: LndStreamEventProtocol) {
+  init(streamId: Int64, emitter eventEmitter: RCTEventEmitter, callback: LndStreamEventProtocol) {
     self.streamId = streamId
     self.eventEmitter = eventEmitter
     self.callback = callback
@@ -81,3 +85,99 @@ class LndRecvStream: NSObject, LndmobileRecvStreamProtocol {
                                 ])
   }
 }
+
+class LndCursor {
+  var cursorId: Int64
+  var method: String
+  var request: Data
+  var pageSize: UInt64
+  var reversed: Bool = false
+  var indexOffset: UInt64 = 0
+  var done: Bool = false
+  
+  init(cursorId: Int64, method: String, request: Data, pageSize: UInt64) throws {
+    self.cursorId = cursorId
+    self.method = method
+    self.request = request
+    self.pageSize = pageSize
+    
+    if method == "ListPayments" {
+      let listPayments = try Lnrpc_ListPaymentsRequest(serializedData: request)
+      self.reversed = listPayments.reversed
+      self.indexOffset = listPayments.indexOffset
+    } else if method == "ListInvoices" {
+      let listInvoices = try Lnrpc_ListInvoiceRequest(serializedData: request)
+      self.reversed = listInvoices.reversed
+      self.indexOffset = listInvoices.indexOffset
+    } else {
+      throw NSError(domain: "LndMobile", code: 0, userInfo: [NSLocalizedDescriptionKey: "cursor not supported: \(method)"])
+    }
+  }
+  
+  func pageRequest() throws -> Data {
+    if method == "ListPayments" {
+      var listPayments = try Lnrpc_ListPaymentsRequest(serializedData: request)
+      listPayments.indexOffset = indexOffset
+      listPayments.maxPayments = pageSize
+      return try listPayments.serializedData()
+    }
+    
+    var listInvoices = try Lnrpc_ListInvoiceRequest(serializedData: request)
+    listInvoices.indexOffset = indexOffset
+    listInvoices.numMaxInvoices = pageSize
+    return try listInvoices.serializedData()
+  }
+  
+  func onPage(_ data: Data) throws {
+    var count: Int
+    var firstIndexOffset: UInt64
+    var lastIndexOffset: UInt64
+    
+    if method == "ListPayments" {
+      let listPayments = try Lnrpc_ListPaymentsResponse(serializedData: data)
+      count = listPayments.payments.count
+      firstIndexOffset = listPayments.firstIndexOffset
+      lastIndexOffset = listPayments.lastIndexOffset
+    } else {
+      let listInvoices = try Lnrpc_ListInvoiceResponse(serializedData: data)
+      count = listInvoices.invoices.count
+      firstIndexOffset = listInvoices.firstIndexOffset
+      lastIndexOffset = listInvoices.lastIndexOffset
+    }
+    
+    // Reversed pages walk back from the first index of the previous page
+    self.indexOffset = self.reversed ? firstIndexOffset : lastIndexOffset
+    self.done = UInt64(count) < self.pageSize || (self.reversed && self.indexOffset <= 1)
+  }
+}
+
+class LndCursorCallback: LndCallback {
+  var cursor: LndCursor
+  var callback: LndCursorEventProtocol
+  
+  init(cursor: LndCursor, callback: LndCursorEventProtocol, resolver resolve: @escaping RCTPromiseResolveBlock, rejecter reject: @escaping RCTPromiseRejectBlock) {
+    self.cursor = cursor
+    self.callback = callback
+    super.init(resolver: resolve, rejecter: reject)
+  }
+  
+  override func onResponse(_ p0: Data?) {
+    do {
+      try self.cursor.onPage(p0 ?? Data())
+    } catch {
+      self.reject("error", error.localizedDescription, error)
+      return
+    }
+    
+    self.resolve([
+      "cursorId": self.cursor.cursorId,
+      "done": self.cursor.done,
+      "indexOffset": self.cursor.indexOffset,
+      "data": p0?.base64EncodedString(options: []) ?? ""
+    ])
+    
+    if self.cursor.done {
+      self.callback.onCursorClose(cursorId: self.cursor.cursorId)
+    }
+  }
+}
@@ -207,6 +207,58 @@ autopilot.heuristic=preferential:0.05
     } catch {}
   }
   
+  @objc(mergeConf:resolver:rejecter:)
+  func mergeConf(_ overrides: NSDictionary, resolver resolve: @escaping RCTPromiseResolveBlock, rejecter reject: @escaping RCTPromiseRejectBlock) {
+    reject("error", "Merging conf overrides is not supported on iOS", nil)
+  }
+
+  @objc(getConf:rejecter:)
+  func getConf(_ resolve: @escaping RCTPromiseResolveBlock, rejecter reject: @escaping RCTPromiseRejectBlock) {
+    do {
+      resolve(try String(contentsOf: LndUtils.confFile, encoding: .utf8))
+    } catch let err {
+      reject("error", err.localizedDescription, err)
+    }
+  }
+
+  @objc(configureLogEvents:resolver:rejecter:)
+  func configureLogEvents(_ options: NSDictionary, resolver resolve: @escaping RCTPromiseResolveBlock, rejecter reject: @escaping RCTPromiseRejectBlock) {
+    // Log events are emitted as they are read on iOS
+    resolve("log events configured")
+  }
+
+  @objc(getRecentLogs:rejecter:)
+  func getRecentLogs(_ resolve: @escaping RCTPromiseResolveBlock, rejecter reject: @escaping RCTPromiseRejectBlock) {
+    resolve([])
+  }
+
+  @objc(searchLog:maxResults:resolver:rejecter:)
+  func searchLog(_ pattern: String, maxResults: Int, resolver resolve: @escaping RCTPromiseResolveBlock, rejecter reject: @escaping RCTPromiseRejectBlock) {
+    DispatchQueue.global(qos: .utility).async {
+      do {
+        let regex = try NSRegularExpression(pattern: pattern)
+        let content = (try? String(contentsOf: LndUtils.logFile, encoding: .utf8)) ?? ""
+        var results: [[String: Any]] = []
+
+        for (index, line) in content.components(separatedBy: "\n").enumerated() {
+          if regex.firstMatch(in: line, range: NSRange(line.startIndex..., in: line)) != nil {
+            results.append(["file": LndUtils.logFile.lastPathComponent, "line": index + 1, "text": line])
+          }
+        }
+
+        resolve(Array(results.suffix(max(1, maxResults))))
+      } catch let err {
+        reject("error", err.localizedDescription, err)
+      }
+    }
+  }
+
+  @objc(exportLogs:rejecter:)
+  func exportLogs(_ resolve: @escaping RCTPromiseResolveBlock, rejecter reject: @escaping RCTPromiseRejectBlock) {
+    // Logs are not kept across runs on iOS, share the current log instead
+    resolve(LndUtils.logFile.path)
+  }
+
   @objc(startLogEvents:rejecter:)
   func startLogEvents(_ resolve: @escaping RCTPromiseResolveBlock, rejecter reject: @escaping RCTPromiseRejectBlock) {
     if !self.logEventsStarted {
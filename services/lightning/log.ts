@@ -1,6 +1,7 @@
 import { NativeEventEmitter, NativeModules } from "react-native"
 import { LndUtils, LndUtilsEventEmitter } from "services/lnd/utils"
 import { LightningBackend } from "types/lightningBackend"
+import { LOG_EVENT_OPTIONS } from "utils/constants"
 import { Log } from "utils/logging"
 
 const breezSdkLog = new Log("BreezSDK")
@@ -18,9 +19,11 @@ export const startLogEvents = async (backend: LightningBackend): Promise<void> =
         })
         BreezSDK.setLogStream()
     } else if (backend === LightningBackend.LND) {
-        LndUtilsEventEmitter.addListener("logEvent", (data) => {
-            log.debug(data, true)
+        LndUtilsEventEmitter.addListener("logEvent", (data: string | string[]) => {
+            const lines = Array.isArray(data) ? data : [data]
+            lines.forEach((line) => log.debug(line, true))
         })
+        await LndUtils.configureLogEvents(LOG_EVENT_OPTIONS)
         LndUtils.startLogEvents()
     }
 }
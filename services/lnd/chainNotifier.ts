@@ -1,5 +1,5 @@
 import { chainrpc } from "proto/proto"
-import { sendStreamCommand, sendStreamResponse } from "services/lnd/mobile"
+import { coalesceStreamOptions, sendStreamCommand, sendStreamResponse } from "services/lnd/mobile"
 import { toBytesOrNull } from "utils/conversion"
 import { Log } from "utils/logging"
 import { BytesLikeType } from "utils/types"
@@ -18,7 +18,8 @@ export const registerBlockEpochNtfn = (onData: BlockEpochStreamResponse, hash?:
         options: {
             hash: toBytesOrNull(hash),
             height: height
-        }
+        },
+        streamOptions: coalesceStreamOptions
     })
     return sendStreamResponse<chainrpc.BlockEpoch>({ stream, method, onData })
 }
@@ -1,5 +1,13 @@
 import { lnrpc } from "proto/proto"
-import { bidirectionalStreamRequest, sendCommand, sendStreamCommand, sendStreamResponse } from "services/lnd/mobile"
+import { EmitterSubscription, NativeModules } from "react-native"
+import {
+    batchStreamOptions,
+    bidirectionalStreamRequest,
+    LndMobileEventEmitter,
+    sendCommand,
+    sendStreamCommand,
+    sendStreamResponse
+} from "services/lnd/mobile"
 import { Sendable } from "utils/sendable"
 import { hexToBytes, toLong } from "utils/conversion"
 import { Log } from "utils/logging"
@@ -7,10 +15,51 @@ import { BytesLikeType, LongLikeType } from "utils/types"
 
 const log = new Log("Channel")
 const service = ""
+const { LndMobile } = NativeModules
 
 export type ChannelAcceptor = Sendable<lnrpc.IChannelAcceptResponse, lnrpc.ChannelAcceptRequest>
 export type ChannelAcceptorStreamRequest = (data: lnrpc.ChannelAcceptRequest) => void
 
+export interface ChannelAcceptorRule {
+    pubkey?: string
+    minCapacity?: number
+    maxCapacity?: number
+    allowZeroConf?: boolean
+    allowScidAlias?: boolean
+    privateOnly?: boolean
+}
+
+export interface ChannelAcceptorEvent {
+    type: "data" | "end" | "error"
+    pubkey?: string
+    pendingChanId?: string
+    fundingAmt?: number
+    accept?: boolean
+    zeroConf?: boolean
+    error?: string
+}
+
+export type ChannelAcceptorEventResponse = (event: ChannelAcceptorEvent) => void
+
+let channelAcceptorSubscription: EmitterSubscription | null = null
+
+// Requests are answered natively against the rules, onEvent is only told about each decision
+export const startChannelAcceptor = async (rules: ChannelAcceptorRule[], onEvent: ChannelAcceptorEventResponse): Promise<void> => {
+    channelAcceptorSubscription?.remove()
+    channelAcceptorSubscription = LndMobileEventEmitter.addListener("channelAcceptorEvent", onEvent)
+    await LndMobile.startChannelAcceptor(rules)
+}
+
+export const setChannelAcceptorRules = (rules: ChannelAcceptorRule[]) => {
+    LndMobile.setChannelAcceptorRules(rules)
+}
+
+export const stopChannelAcceptor = () => {
+    channelAcceptorSubscription?.remove()
+    channelAcceptorSubscription = null
+    LndMobile.stopChannelAcceptor()
+}
+
 export type ChannelEventUpdateStreamResponse = (data: lnrpc.ChannelEventUpdate) => void
 export type OpenStatusUpdateStreamResponse = (data: lnrpc.OpenStatusUpdate) => void
 
@@ -84,6 +133,7 @@ interface ListChannelsProps {
     publicOnly?: boolean
     privateOnly?: boolean
     peer?: BytesLikeType
+    fieldMask?: string[]
 }
 
 export const listChannels = ({
@@ -91,7 +141,8 @@ export const listChannels = ({
     inactiveOnly = false,
     publicOnly = false,
     privateOnly = false,
-    peer
+    peer,
+    fieldMask
 }: ListChannelsProps): Promise<lnrpc.ListChannelsResponse> => {
     return sendCommand<lnrpc.IListChannelsRequest, lnrpc.ListChannelsRequest, lnrpc.ListChannelsResponse>({
         request: lnrpc.ListChannelsRequest,
@@ -103,7 +154,8 @@ export const listChannels = ({
             publicOnly,
             privateOnly,
             peer: peer ? hexToBytes(peer) : null
-        }
+        },
+        fieldMask
     })
 }
 
@@ -165,7 +217,8 @@ export const subscribeChannelEvents = (onData: ChannelEventUpdateStreamResponse)
         request: lnrpc.ChannelEventSubscription,
         response: lnrpc.ChannelEventUpdate,
         method,
-        options: {}
+        options: {},
+        streamOptions: batchStreamOptions
     })
     return sendStreamResponse<lnrpc.ChannelEventUpdate>({ stream, method, onData })
 }
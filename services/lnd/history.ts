@@ -0,0 +1,85 @@
+import { lnrpc } from "proto/proto"
+import { EmitterSubscription, NativeModules } from "react-native"
+import { deserializeResponse, LndMobileEventEmitter } from "services/lnd/mobile"
+import { toNumber } from "utils/conversion"
+import { LongLikeType } from "utils/types"
+
+const { LndMobile } = NativeModules
+
+export type InvoiceHistoryResponse = (data: lnrpc.Invoice) => void
+
+export interface HistoryCheckpoint {
+    invoices: number
+    addIndex: number
+    settleIndex: number
+    payments: number
+    indexOffset: number
+    invoiceIndexOffset: number
+    fetchedInvoices: number
+    fetchedPayments: number
+}
+
+let invoiceHistorySubscription: EmitterSubscription | null = null
+
+export const openHistory = (): Promise<HistoryCheckpoint> => {
+    return LndMobile.openHistory()
+}
+
+export const syncPaymentHistory = (): Promise<number> => {
+    return LndMobile.syncPaymentHistory()
+}
+
+export const queryInvoiceHistory = async (
+    indexOffset: LongLikeType,
+    limit: number,
+    reversed: boolean = false
+): Promise<lnrpc.ListInvoiceResponse> => {
+    return deserializeResponse(lnrpc.ListInvoiceResponse, await LndMobile.queryHistory("invoices", toNumber(indexOffset), limit, reversed))
+}
+
+export const queryPaymentHistory = async (
+    indexOffset: LongLikeType,
+    limit: number,
+    reversed: boolean = false
+): Promise<lnrpc.ListPaymentsResponse> => {
+    return deserializeResponse(lnrpc.ListPaymentsResponse, await LndMobile.queryHistory("payments", toNumber(indexOffset), limit, reversed))
+}
+
+export const queryInvoiceHistoryPages = async (
+    indexOffset: LongLikeType,
+    pageSize: number,
+    onPage: (page: lnrpc.ListInvoiceResponse) => Promise<void> | void
+): Promise<void> => {
+    let page: lnrpc.ListInvoiceResponse
+
+    do {
+        page = await queryInvoiceHistory(indexOffset, pageSize)
+        indexOffset = page.lastIndexOffset
+
+        await onPage(page)
+    } while (page.invoices.length === pageSize)
+}
+
+export const queryPaymentHistoryPages = async (
+    indexOffset: LongLikeType,
+    pageSize: number,
+    onPage: (page: lnrpc.ListPaymentsResponse) => Promise<void> | void
+): Promise<void> => {
+    let page: lnrpc.ListPaymentsResponse
+
+    do {
+        page = await queryPaymentHistory(indexOffset, pageSize)
+        indexOffset = page.lastIndexOffset
+
+        await onPage(page)
+    } while (page.payments.length === pageSize)
+}
+
+export const subscribeInvoiceHistory = (onData: InvoiceHistoryResponse) => {
+    invoiceHistorySubscription?.remove()
+    invoiceHistorySubscription = LndMobileEventEmitter.addListener("historyEvent", (event: any) => {
+        if (event.kind === "invoices") {
+            onData(deserializeResponse(lnrpc.Invoice, event))
+        }
+    })
+}
@@ -1,6 +1,7 @@
 import type { InvoiceStreamResponse, TransactionStreamResponse } from "./lightning"
 import type { BlockEpochStreamResponse } from "./chainNotifier"
-import type { CloseChannelProps, ChannelAcceptor } from "./channel"
+import type { CloseChannelProps, ChannelAcceptor, ChannelAcceptorEvent, ChannelAcceptorRule } from "./channel"
+import type { HistoryCheckpoint, InvoiceHistoryResponse } from "./history"
 import type { PaymentStreamResponse, SendPaymentV2Props } from "./router"
 import type { SendCoinsProps } from "./wallet"
 
@@ -15,6 +16,7 @@ import {
     getInfo,
     getNodeInfo,
     listPayments,
+    listPaymentPages,
     listPeers,
     sendCustomMessage,
     signMessage,
@@ -25,10 +27,30 @@ import {
     verifyMessage
 } from "./lightning"
 import { registerBlockEpochNtfn } from "./chainNotifier"
-import { closeChannel, closedChannels, channelAcceptor, channelBalance, listChannels, openChannel, subscribeChannelEvents } from "./channel"
+import {
+    closeChannel,
+    closedChannels,
+    channelAcceptor,
+    channelBalance,
+    listChannels,
+    openChannel,
+    setChannelAcceptorRules,
+    startChannelAcceptor,
+    stopChannelAcceptor,
+    subscribeChannelEvents
+} from "./channel"
+import {
+    openHistory,
+    queryInvoiceHistory,
+    queryInvoiceHistoryPages,
+    queryPaymentHistory,
+    queryPaymentHistoryPages,
+    subscribeInvoiceHistory,
+    syncPaymentHistory
+} from "./history"
 import { markEdgeLive, resetMissionControl, sendPaymentV2 } from "./router"
 import { getState, subscribeState } from "./state"
-import { genSeed, initWallet, sendCoins, unlockWallet, walletBalance } from "./wallet"
+import { genSeed, initWallet, sendCoins, startAndUnlock, unlockWallet, walletBalance } from "./wallet"
 
 export type {
     InvoiceStreamResponse,
@@ -38,6 +60,11 @@ export type {
     // Channel
     CloseChannelProps,
     ChannelAcceptor,
+    ChannelAcceptorEvent,
+    ChannelAcceptorRule,
+    // History
+    HistoryCheckpoint,
+    InvoiceHistoryResponse,
     // Router
     PaymentStreamResponse,
     SendPaymentV2Props,
@@ -56,6 +83,7 @@ export {
     getInfo,
     getNodeInfo,
     listPayments,
+    listPaymentPages,
     listPeers,
     sendCustomMessage,
     signMessage,
@@ -73,7 +101,18 @@ export {
     channelBalance,
     listChannels,
     openChannel,
+    setChannelAcceptorRules,
+    startChannelAcceptor,
+    stopChannelAcceptor,
     subscribeChannelEvents,
+    // History
+    openHistory,
+    queryInvoiceHistory,
+    queryInvoiceHistoryPages,
+    queryPaymentHistory,
+    queryPaymentHistoryPages,
+    subscribeInvoiceHistory,
+    syncPaymentHistory,
     // Router
     markEdgeLive,
     resetMissionControl,
@@ -85,6 +124,7 @@ export {
     genSeed,
     initWallet,
     sendCoins,
+    startAndUnlock,
     unlockWallet,
     walletBalance
 }
@@ -1,7 +1,7 @@
 import { NativeModules } from "react-native"
 import { lnrpc } from "proto/proto"
-import { sendCommand, sendStreamCommand, sendStreamResponse } from "services/lnd/mobile"
-import { INVOICE_EXPIRY } from "utils/constants"
+import { batchStreamOptions, configureResponseCache, sendCommand, sendCursorCommand, sendStreamCommand, sendStreamResponse } from "services/lnd/mobile"
+import { INVOICE_EXPIRY, RESPONSE_CACHE_TTLS } from "utils/constants"
 import { hexToBytes, toLong } from "utils/conversion"
 import { Log } from "utils/logging"
 import { BytesLikeType, LongLikeType } from "utils/types"
@@ -21,6 +21,7 @@ export const start = async (): Promise<string> => {
     try {
         const response = await LndMobile.start()
         log.debugTime("SAT029: Start Response", requestTime, true)
+        configureResponseCache(RESPONSE_CACHE_TTLS)
         return response
     } catch (e) {
         log.errorTime("SAT029: Start Error", requestTime, true)
@@ -142,7 +143,11 @@ export const getNodeInfo = (pubkey: string, includeChannels: boolean = false): P
     })
 }
 
-export const listPayments = (includeIncomplete: boolean = false, indexOffset: LongLikeType = 0): Promise<lnrpc.ListPaymentsResponse> => {
+export const listPayments = (
+    includeIncomplete: boolean = false,
+    indexOffset: LongLikeType = 0,
+    fieldMask?: string[]
+): Promise<lnrpc.ListPaymentsResponse> => {
     return sendCommand<lnrpc.IListPaymentsRequest, lnrpc.ListPaymentsRequest, lnrpc.ListPaymentsResponse>({
         request: lnrpc.ListPaymentsRequest,
         response: lnrpc.ListPaymentsResponse,
@@ -150,7 +155,29 @@ export const listPayments = (includeIncomplete: boolean = false, indexOffset: Lo
         options: {
             includeIncomplete,
             indexOffset: toLong(indexOffset)
-        }
+        },
+        fieldMask
+    })
+}
+
+export const listPaymentPages = (
+    includeIncomplete: boolean,
+    indexOffset: LongLikeType,
+    pageSize: number,
+    onPage: (page: lnrpc.ListPaymentsResponse) => Promise<void> | void,
+    fieldMask?: string[]
+): Promise<void> => {
+    return sendCursorCommand<lnrpc.IListPaymentsRequest, lnrpc.ListPaymentsRequest, lnrpc.ListPaymentsResponse>({
+        request: lnrpc.ListPaymentsRequest,
+        response: lnrpc.ListPaymentsResponse,
+        method: service + "ListPayments",
+        options: {
+            includeIncomplete,
+            indexOffset: toLong(indexOffset)
+        },
+        pageSize,
+        fieldMask,
+        onPage
     })
 }
 
@@ -213,7 +240,8 @@ export const subscribeInvoices = (
         options: {
             addIndex: toLong(addIndex),
             settleIndex: toLong(settleIndex)
-        }
+        },
+        streamOptions: batchStreamOptions
     })
     return sendStreamResponse<lnrpc.Invoice>({ stream, method, onData })
 }
@@ -224,7 +252,8 @@ export const subscribePeerEvents = async (onData: PeerStreamResponse): Promise<l
         request: lnrpc.PeerEventSubscription,
         response: lnrpc.PeerEvent,
         method,
-        options: {}
+        options: {},
+        streamOptions: batchStreamOptions
     })
     return sendStreamResponse<lnrpc.PeerEvent>({ stream, method, onData })
 }
@@ -235,7 +264,8 @@ export const subscribeTransactions = async (onData: TransactionStreamResponse):
         request: lnrpc.GetTransactionsRequest,
         response: lnrpc.Transaction,
         method,
-        options: {}
+        options: {},
+        streamOptions: batchStreamOptions
     })
     return sendStreamResponse<lnrpc.Transaction>({ stream, method, onData })
 }
@@ -1,9 +1,10 @@
 import { IConversionOptions, Reader, Writer } from "protobufjs"
-import { NativeModules, NativeEventEmitter } from "react-native"
+import { EmitterSubscription, NativeModules, NativeEventEmitter } from "react-native"
 import { Duplex } from "stream"
 import cancelable, { Cancelable } from "utils/cancelable"
 import sendable, { Sendable } from "utils/sendable"
 import { DEBUG } from "utils/build"
+import { STREAM_BATCH_INTERVAL, STREAM_BATCH_SIZE, STREAM_QUEUE_SIZE } from "utils/constants"
 import { base64ToBytes, bytesToBase64 } from "utils/conversion"
 import { Log } from "utils/logging"
 
@@ -12,6 +13,10 @@ const { LndMobile } = NativeModules
 
 export const LndMobileEventEmitter = new NativeEventEmitter(LndMobile)
 
+declare const global: {
+    __lndTakeBuffer?: (bufferId: number) => ArrayBuffer | null
+}
+
 /**
  * Send & Stream Request/Response Interfaces
  */
@@ -31,6 +36,40 @@ export interface ISyncCommand<IRequest, Request, Response> {
     response: ISendResponse<Response>
     method: string
     options: IRequest
+    fieldMask?: string[]
+}
+
+export interface ICursorCommand<IRequest, Request, Response> {
+    request: ISendRequest<IRequest, Request>
+    response: ISendResponse<Response>
+    method: string
+    options: IRequest
+    pageSize: number
+    fieldMask?: string[]
+    onPage: (page: Response) => Promise<void> | void
+}
+
+// Defaults to "dropOldest", "block" holds lnd's callback thread for up to a second while the queue is full
+export type StreamOverflow = "dropOldest" | "coalesceLatest" | "block"
+
+export interface IStreamOptions {
+    batchSize?: number
+    batchInterval?: number
+    queueSize?: number
+    overflow?: StreamOverflow
+    maxInFlight?: number
+    coalesce?: boolean
+}
+
+export const batchStreamOptions: IStreamOptions = {
+    batchSize: STREAM_BATCH_SIZE,
+    batchInterval: STREAM_BATCH_INTERVAL,
+    queueSize: STREAM_QUEUE_SIZE,
+    overflow: "dropOldest"
+}
+
+export const coalesceStreamOptions: IStreamOptions = {
+    coalesce: true
 }
 
 export interface IStreamCommand<IRequest, Request, Response> {
@@ -38,6 +77,7 @@ export interface IStreamCommand<IRequest, Request, Response> {
     response: ISendResponse<Response>
     method: string
     options: IRequest
+    streamOptions?: IStreamOptions
 }
 
 export interface IStreamResult<Response> {
@@ -60,24 +100,42 @@ export const serializeRequest = <IRequest, Request>(request: ISendRequest<IReque
     return bytesToBase64(encodeRequest(request, options))
 }
 
+export const takeResponseBytes = (base64Data: any): Uint8Array => {
+    if (base64Data.bufferId !== undefined) {
+        const buffer = global.__lndTakeBuffer ? global.__lndTakeBuffer(base64Data.bufferId) : null
+
+        if (!buffer) {
+            // Decoding nothing would pass a lost response off as a default message
+            throw new Error(`Response buffer ${base64Data.bufferId} is no longer available`)
+        }
+
+        return new Uint8Array(buffer)
+    }
+
+    return base64ToBytes(base64Data.data || "")
+}
+
 export const deserializeResponse = <Response>(response: ISendResponse<Response>, base64Data: any): Response => {
     if (DEBUG) {
         log.debug(`SAT012 deserializeResponse: ${JSON.stringify(base64Data)}`)
     }
 
-    return response.decode(base64ToBytes(base64Data.data || ""))
+    return response.decode(takeResponseBytes(base64Data))
 }
 
 export const sendCommand = async <IRequest, Request, Response>({
     request,
     response,
     method,
-    options
+    options,
+    fieldMask
 }: ISyncCommand<IRequest, Request, Response>): Promise<Response> => {
     const requestTime = log.debugTime(`SAT013: ${method} Request`)
     try {
         const base64Command = serializeRequest(request, options)
-        const base64Response = await LndMobile.sendCommand(method, base64Command)
+        const base64Response = fieldMask
+            ? await LndMobile.sendCommandProjected(method, base64Command, fieldMask)
+            : await LndMobile.sendCommand(method, base64Command)
         const data = deserializeResponse(response, base64Response)
 
         log.debugTime(`SAT013: ${method} Response`, requestTime)
@@ -98,51 +156,278 @@ export const sendCommand = async <IRequest, Request, Response>({
     }
 }
 
-export const getStreamId = (): string => {
-    return String(Date.now().valueOf())
+export const sendCursorCommand = async <IRequest, Request, Response>({
+    request,
+    response,
+    method,
+    options,
+    pageSize,
+    fieldMask,
+    onPage
+}: ICursorCommand<IRequest, Request, Response>): Promise<void> => {
+    const requestTime = log.debugTime(`SAT013: ${method} Cursor Request`)
+    const base64Command = serializeRequest(request, options)
+    const cursorId: number = await LndMobile.openCursor(method, base64Command, pageSize, fieldMask || null)
+    let done = false
+
+    try {
+        while (!done) {
+            const page = await LndMobile.nextPage(cursorId)
+            done = page.done
+
+            await onPage(deserializeResponse(response, page))
+        }
+
+        log.debugTime(`SAT013: ${method} Cursor Response`, requestTime)
+    } catch (err) {
+        log.debugTime(`SAT014: ${method} Cursor Response Error`, requestTime, true)
+
+        if (typeof err === "string") {
+            throw new Error(err)
+        } else {
+            throw err
+        }
+    } finally {
+        if (!done) {
+            LndMobile.closeCursor(cursorId)
+        }
+    }
+}
+
+export const sendCommandBatch = async (commands: ISyncCommand<any, any, any>[]): Promise<any[]> => {
+    const requestTime = log.debugTime(`SAT013: Batch Request <${commands.map(({ method }) => method).join(", ")}>`)
+    const results: any[] = await LndMobile.sendCommandBatch(
+        commands.map(({ request, method, options }) => ({ method, msg: serializeRequest(request, options) }))
+    )
+
+    log.debugTime(`SAT013: Batch Response`, requestTime)
+
+    // Each result is either the decoded response or an Error for that command
+    return results.map((result, index) => {
+        if (result.error !== undefined) {
+            return new Error(result.error)
+        }
+
+        try {
+            return deserializeResponse(commands[index].response, result)
+        } catch (error) {
+            return error
+        }
+    })
+}
+
+export type StreamEventHandler = (event: any) => void
+
+const PENDING_STREAM_EVENT_TTL = 30000
+const MAX_PENDING_STREAM_EVENTS = 1024
+
+interface PendingStreamEvents {
+    events: any[]
+    createdAt: number
+}
+
+const streamHandlers = new Map<number, StreamEventHandler>()
+const pendingStreamEvents = new Map<number, PendingStreamEvents>()
+let pendingStreamEventCount = 0
+let streamRouter: EmitterSubscription | null = null
+
+const dispatchStreamEvent = (handler: StreamEventHandler, event: any) => {
+    try {
+        handler(event)
+    } finally {
+        if (event.ack) {
+            // Flow controlled streams wait for this before emitting more events
+            LndMobile.ackStreamEvent(event.streamId)
+        }
+    }
+}
+
+const dropStreamEvents = (events: any[]) => {
+    // Acknowledge dropped events so a flow controlled stream is not left waiting
+    events.filter((event) => event.ack).forEach((event) => LndMobile.ackStreamEvent(event.streamId))
+}
+
+const takePendingStreamEvents = (streamId: number): any[] => {
+    const pending = pendingStreamEvents.get(streamId)
+
+    if (!pending) {
+        return []
+    }
+
+    pendingStreamEvents.delete(streamId)
+    pendingStreamEventCount -= pending.events.length
+    return pending.events
+}
+
+const expirePendingStreamEvents = (now: number) => {
+    pendingStreamEvents.forEach((pending, streamId) => {
+        if (now - pending.createdAt > PENDING_STREAM_EVENT_TTL) {
+            dropStreamEvents(takePendingStreamEvents(streamId))
+        }
+    })
+}
+
+const routeStreamEvent = (event: any) => {
+    const handler = streamHandlers.get(event.streamId)
+
+    if (handler) {
+        dispatchStreamEvent(handler, event)
+        return
+    }
+
+    // Stream ids resolve out of order across executor lanes, so hold events for any unregistered id
+    const now = Date.now()
+    expirePendingStreamEvents(now)
+
+    if (pendingStreamEventCount >= MAX_PENDING_STREAM_EVENTS) {
+        dropStreamEvents([event])
+        return
+    }
+
+    const pending = pendingStreamEvents.get(event.streamId)
+
+    if (pending) {
+        pending.events.push(event)
+    } else {
+        pendingStreamEvents.set(event.streamId, { events: [event], createdAt: now })
+    }
+
+    pendingStreamEventCount++
+}
+
+export const addStreamHandler = (streamId: number, handler: StreamEventHandler) => {
+    if (!streamRouter) {
+        streamRouter = LndMobileEventEmitter.addListener("streamEvent", routeStreamEvent)
+    }
+
+    streamHandlers.set(streamId, handler)
+    takePendingStreamEvents(streamId).forEach((event) => dispatchStreamEvent(handler, event))
+}
+
+export const removeStreamHandler = (streamId: number) => {
+    streamHandlers.delete(streamId)
+    dropStreamEvents(takePendingStreamEvents(streamId))
 }
 
 export const sendStreamCommand = <IRequest, Request, Response>({
     request,
     response,
     method,
-    options
+    options,
+    streamOptions
 }: IStreamCommand<IRequest, Request, Response>): Duplex => {
-    const streamId = getStreamId()
-    const requestTime = log.debugTime(`SAT015: ${method} Request <${streamId}>`)
+    const requestTime = log.debugTime(`SAT015: ${method} Request`)
+    const pendingWrites: string[] = []
+    let streamId: number | null = null
+    let destroyed = false
+
     const stream = new Duplex({
         destroy() {
             log.debug(`SAT015: ${method} Destroy <${streamId}>`)
-            LndMobile.closeStream(streamId)
-            listener.remove()
+            destroyed = true
+
+            if (streamId !== null) {
+                LndMobile.closeStream(streamId)
+                removeStreamHandler(streamId)
+            }
         },
         read() {},
-        write(data) {
+        write(data, encoding, callback) {
             const base64Command = bytesToBase64(data)
-            LndMobile.sendStreamWrite(streamId, base64Command)
+
+            if (streamId !== null) {
+                LndMobile.sendStreamWrite(streamId, base64Command)
+            } else {
+                pendingWrites.push(base64Command)
+            }
+
+            callback()
         }
     })
-    const listener = LndMobileEventEmitter.addListener("streamEvent", (event) => {
-        if (event.streamId === streamId) {
-            log.debugTime(`SAT015: ${method} Response <${streamId}: ${event.type}>`, requestTime)
-            let data = event.error || event.data
+    const onStreamEvent = (event: any) => {
+        log.debugTime(`SAT015: ${method} Response <${streamId}: ${event.type}>`, requestTime)
+        let data = event.error || event.data
+        let items: Response[] = []
 
-            if (event.type === "data") {
+        try {
+            if (event.type === "batch") {
+                items = event.items.map((item: any) => deserializeResponse(response, item))
+            } else if (event.type === "data") {
                 data = deserializeResponse(response, event)
-            } else if (event.type === "error" || event.type === "end") {
-                log.debug(`SAT016: ${method} Error <${streamId}: ${event.type}>`)
-                listener.remove()
             }
+        } catch (error) {
+            log.error(`SAT016: ${method} Error <${streamId}>: ${error}`)
+            stream.emit("error", error)
+            return
+        }
 
-            log.debug(JSON.stringify(data, null, 2))
-            stream.emit(event.type, data)
+        if (event.type === "batch") {
+            items.forEach((item) => stream.emit("data", item))
+            return
+        } else if (event.type === "error" || event.type === "end") {
+            log.debug(`SAT016: ${method} Error <${streamId}: ${event.type}>`)
+            removeStreamHandler(event.streamId)
         }
-    })
+
+        log.debug(JSON.stringify(data, null, 2))
+        stream.emit(event.type, data)
+    }
     const base64Command = serializeRequest(request, options)
-    LndMobile.sendStreamCommand(method, streamId, base64Command)
+
+    LndMobile.sendStreamCommand(method, base64Command, streamOptions || null)
+        .then((id: number) => {
+            streamId = id
+
+            if (destroyed) {
+                LndMobile.closeStream(id)
+                removeStreamHandler(id)
+                return
+            }
+
+            addStreamHandler(id, onStreamEvent)
+            pendingWrites.forEach((pendingWrite) => LndMobile.sendStreamWrite(id, pendingWrite))
+            pendingWrites.length = 0
+        })
+        .catch((err: any) => stream.emit("error", err))
+
     return stream
 }
 
+export const getStreamStats = (): Promise<any> => {
+    return LndMobile.getStreamStats()
+}
+
+export interface ActiveStreams {
+    open: number
+    closing: number
+    upstreams: number
+    methods: { [method: string]: number }
+}
+
+export const getActiveStreams = (): Promise<ActiveStreams> => {
+    return LndMobile.getActiveStreams()
+}
+
+export const getExecutorStats = (): Promise<any> => {
+    return LndMobile.getExecutorStats()
+}
+
+export const configureResponseCache = (ttls: { [method: string]: number }) => {
+    LndMobile.configureResponseCache(ttls)
+}
+
+export const setEarlyStart = (enabled: boolean): Promise<boolean> => {
+    return LndMobile.setEarlyStart(enabled)
+}
+
+export const getStartupTimings = (): Promise<{ [phase: string]: number }> => {
+    return LndMobile.getStartupTimings()
+}
+
+export const getMetrics = (): Promise<any> => {
+    return LndMobile.getMetrics()
+}
+
 export const sendStreamResponse = <Response>({ stream, method, onData }: IStreamResponse<Response>): Cancelable<Response> => {
     const response = cancelable(
         new Promise<Response>((resolve, reject) => {
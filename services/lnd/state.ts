@@ -1,5 +1,5 @@
 import { lnrpc } from "proto/proto"
-import { sendCommand, sendStreamCommand, sendStreamResponse } from "services/lnd/mobile"
+import { coalesceStreamOptions, sendCommand, sendStreamCommand, sendStreamResponse } from "services/lnd/mobile"
 import { Log } from "utils/logging"
 
 const log = new Log("State")
@@ -22,7 +22,8 @@ export const subscribeState = (onData: SubscribeStateStreamResponse): Promise<ln
         request: lnrpc.SubscribeStateRequest,
         response: lnrpc.SubscribeStateResponse,
         method,
-        options: {}
+        options: {},
+        streamOptions: coalesceStreamOptions
     })
     return sendStreamResponse<lnrpc.SubscribeStateResponse>({ stream, method, onData })
 }
@@ -14,12 +14,45 @@ export const writeDefaultConf = async (): Promise<any> => {
     await LndUtils.writeDefaultConf()
 }
 
+export type ConfValue = string | number | boolean | (string | number | boolean)[] | null
+
+export interface ConfOverrides {
+    [section: string]: { [key: string]: ConfValue }
+}
+
+export const mergeConf = async (overrides: ConfOverrides): Promise<any> => {
+    await LndUtils.mergeConf(overrides)
+}
+
+export const getConf = async (): Promise<string> => {
+    return await LndUtils.getConf()
+}
+
 export const startLogEvents = (): void => {
     log.debug("SAT018: Start Log Events")
-    LndUtilsEventEmitter.addListener("logEvent", (data) => {
-        log.debug(data)
+    LndUtilsEventEmitter.addListener("logEvent", (data: string | string[]) => {
+        const lines = Array.isArray(data) ? data : [data]
+        lines.forEach((line) => log.debug(line))
     })
     LndUtils.startLogEvents()
 }
 
+export const getRecentLogs = async (): Promise<string[]> => {
+    return await LndUtils.getRecentLogs()
+}
+
+export interface LogSearchResult {
+    file: string
+    line: number
+    text: string
+}
+
+export const searchLog = async (pattern: string, maxResults: number): Promise<LogSearchResult[]> => {
+    return await LndUtils.searchLog(pattern, maxResults)
+}
+
+export const exportLogs = async (): Promise<string> => {
+    return await LndUtils.exportLogs()
+}
+
 export { LndUtils }
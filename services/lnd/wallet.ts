@@ -1,6 +1,7 @@
 import { lnrpc } from "proto/proto"
 import { NativeModules } from "react-native"
-import { sendCommand, deserializeResponse } from "services/lnd/mobile"
+import { configureResponseCache, sendCommand, deserializeResponse } from "services/lnd/mobile"
+import { RESPONSE_CACHE_TTLS } from "utils/constants"
 import { toBytesOrNull, toLong } from "utils/conversion"
 import { Log } from "utils/logging"
 
@@ -55,6 +56,18 @@ export const sendCoins = async ({ addr, amount, targetConf, satPerVByte, minConf
     })
 }
 
+export const startAndUnlock = async (password: string): Promise<{ [phase: string]: number }> => {
+    const requestTime = log.debugTime("SAT124: StartAndUnlock Request")
+    configureResponseCache(RESPONSE_CACHE_TTLS)
+
+    const timings = await LndMobile.startAndUnlock(password)
+
+    log.debugTime("SAT124: StartAndUnlock Response", requestTime, true)
+    log.debug(JSON.stringify(timings, null, 2))
+
+    return timings
+}
+
 export const unlockWallet = async (password: string): Promise<lnrpc.UnlockWalletResponse> => {
     const requestTime = log.debugTime("SAT032: UnlockWallet Request")
     const base64Response = await LndMobile.unlockWallet(password)
@@ -15,8 +15,17 @@ import { bytesToHex, reverseByteOrder, toLong, toMilliSatoshi, toNumber, toSatos
 import { DEBUG } from "utils/build"
 import { Log } from "utils/logging"
 import { isValue } from "utils/null"
+import { Platform } from "react-native"
 
 const log = new Log("ChannelStore")
+const listChannelsFieldMask = [
+    "channels.active",
+    "channels.chanId",
+    "channels.remotePubkey",
+    "channels.channelPoint",
+    "channels.capacity",
+    "channels.localConstraints.chanReserveSat"
+]
 
 export interface ChannelStoreInterface extends StoreInterface {
     hydrated: boolean
@@ -130,6 +139,10 @@ export class ChannelStore implements ChannelStoreInterface {
     }
 
     cancelChannelAcceptor() {
+        if (Platform.OS === "android") {
+            lnd.stopChannelAcceptor()
+        }
+
         if (this.channelAcceptor) {
             this.channelAcceptor.cancel()
             this.channelAcceptor = null
@@ -184,7 +197,7 @@ export class ChannelStore implements ChannelStoreInterface {
     }
 
     async getChannels() {
-        const listChannelsResponse: lnrpc.ListChannelsResponse = await lnd.listChannels({})
+        const listChannelsResponse: lnrpc.ListChannelsResponse = await lnd.listChannels({ fieldMask: listChannelsFieldMask })
         this.actionUpdateChannels(listChannelsResponse)
     }
 
@@ -268,7 +281,33 @@ export class ChannelStore implements ChannelStoreInterface {
         this.actionResetChannels()
     }
 
+    channelAcceptorRules(): lnd.ChannelAcceptorRule[] {
+        return this.channelRequests.map(({ pubkey }) => ({ pubkey, allowZeroConf: true, allowScidAlias: true }))
+    }
+
+    onChannelAcceptorEvent({ type, pubkey, pendingChanId, accept, error }: lnd.ChannelAcceptorEvent) {
+        if (type === "data" && pubkey) {
+            log.debug(`SAT034: Channel Acceptor`, true)
+            log.debug(`SAT034: Pubkey: ${pubkey}`, true)
+            log.debug(`SAT034: PendingChanId: ${pendingChanId}`, true)
+
+            if (accept && this.findChannelRequest(pubkey)) {
+                this.actionUpdateChannelRequestStatus(ChannelRequestStatus.NEGOTIATING)
+            }
+        } else if (type !== "data") {
+            log.debug(`SAT035: Channel Acceptor shutdown: ${error}`, true)
+        }
+    }
+
     subscribeChannelAcceptor() {
+        if (Platform.OS === "android") {
+            // Answered natively so zero-conf opens never wait on the JS thread
+            lnd.startChannelAcceptor(this.channelAcceptorRules(), (event) => this.onChannelAcceptorEvent(event)).catch((error) =>
+                log.error(`SAT126: Error starting channel acceptor: ${error}`, true)
+            )
+            return
+        }
+
         this.cancelChannelAcceptor()
 
         this.channelAcceptor = lnd.channelAcceptor((data: lnrpc.ChannelAcceptRequest) => this.onChannelAcceptRequest(data))
@@ -381,6 +420,10 @@ export class ChannelStore implements ChannelStoreInterface {
 
     actionRemoveChannelRequest(channelRequest: ChannelRequestModel) {
         this.channelRequests.remove(channelRequest)
+
+        if (Platform.OS === "android") {
+            lnd.setChannelAcceptorRules(this.channelAcceptorRules())
+        }
     }
 
     actionResetChannels() {
@@ -5,6 +5,7 @@ import { makePersistable } from "mobx-persist-store"
 import InvoiceModel, { InvoiceModelLike } from "models/Invoice"
 import InvoiceRequestModel from "models/InvoiceRequest"
 import { lnrpc } from "proto/proto"
+import { Platform } from "react-native"
 import AsyncStorage from "@react-native-async-storage/async-storage"
 import NetInfo from "@react-native-community/netinfo"
 import * as breezSdk from "@breeztech/react-native-breez-sdk"
@@ -17,8 +18,8 @@ import { fromBreezInvoice, fromBreezPayment, fromLndInvoice, fromLndInvoiceRespo
 import { LightningBackend } from "types/lightningBackend"
 import { InvoiceRequestNotification } from "types/notification"
 import { DEBUG } from "utils/build"
-import { ONE_HOUR_INTERVAL } from "utils/constants"
-import { bytesToBase64, bytesToHex, deepCopy, toMilliSatoshi, toSatoshi } from "utils/conversion"
+import { LIST_PAGE_SIZE, ONE_HOUR_INTERVAL } from "utils/constants"
+import { bytesToBase64, bytesToHex, deepCopy, toLong, toMilliSatoshi, toNumber, toSatoshi } from "utils/conversion"
 import { Log } from "utils/logging"
 import { doWhileUntil } from "utils/backoff"
 
@@ -75,11 +76,14 @@ export class InvoiceStore implements InvoiceStoreInterface {
             subscribedInvoices: observable,
 
             actionInvoiceReceived: action,
+            actionLoadInvoices: action,
             actionResetInvoices: action,
             actionSetReady: action,
             actionSubscribeInvoices: action,
+            actionSubscribeInvoiceHistory: action,
             actionSettleInvoice: action,
             actionUpdateAddIndex: action,
+            actionUpdateIndexes: action,
             actionUpdateInvoice: action
         })
 
@@ -190,6 +194,23 @@ export class InvoiceStore implements InvoiceStoreInterface {
         )
     }
 
+    async loadInvoiceHistory(): Promise<void> {
+        try {
+            // The native history only fetches invoices added or settled since its checkpoints
+            const checkpoint = await lnd.openHistory()
+            log.debug(`SAT127: Invoice history: ${checkpoint.invoices} invoices, ${checkpoint.fetchedInvoices} fetched`, true)
+
+            // Resume from the checkpoint, or from the first invoice that was still open at the last sync
+            const indexOffset = Math.min(toNumber(this.addIndex), checkpoint.invoiceIndexOffset)
+
+            this.actionSubscribeInvoiceHistory()
+            await lnd.queryInvoiceHistoryPages(indexOffset, LIST_PAGE_SIZE, ({ invoices }) => this.actionLoadInvoices(invoices))
+        } catch (error) {
+            log.error(`SAT127: Error loading invoice history: ${error}`, true)
+            this.actionSubscribeInvoices()
+        }
+    }
+
     reset() {
         this.actionResetInvoices()
     }
@@ -322,6 +343,23 @@ export class InvoiceStore implements InvoiceStoreInterface {
         }
     }
 
+    actionLoadInvoices(invoices: lnrpc.IInvoice[]) {
+        for (const invoice of invoices) {
+            this.actionUpdateInvoice(fromLndInvoice(lnrpc.Invoice.fromObject(invoice)))
+            this.actionUpdateIndexes(invoice)
+        }
+    }
+
+    actionSubscribeInvoiceHistory() {
+        if (!this.subscribedInvoices) {
+            lnd.subscribeInvoiceHistory((data: lnrpc.Invoice) => {
+                this.actionInvoiceReceived(data)
+                this.actionUpdateIndexes(data)
+            })
+            this.subscribedInvoices = true
+        }
+    }
+
     actionSettleInvoice(hash: string) {
         log.debug(`SAT046: Settle invoice: ${hash}`, true)
         const invoice = this.findInvoice(hash)
@@ -343,6 +381,16 @@ export class InvoiceStore implements InvoiceStoreInterface {
         }
     }
 
+    actionUpdateIndexes({ addIndex, settleIndex }: lnrpc.IInvoice) {
+        if (addIndex && toLong(addIndex).greaterThan(this.addIndex)) {
+            this.addIndex = addIndex.toString()
+        }
+
+        if (settleIndex && toLong(settleIndex).greaterThan(this.settleIndex)) {
+            this.settleIndex = settleIndex.toString()
+        }
+    }
+
     async whenSyncedToChain(): Promise<void> {
         if (this.stores.lightningStore.backend === LightningBackend.BREEZ_SDK) {
             const fromTimestamp = this.addIndex !== "0" ? parseInt(this.addIndex) : undefined
@@ -350,7 +398,11 @@ export class InvoiceStore implements InvoiceStoreInterface {
 
             this.updateBreezInvoices(payments)
         } else if (this.stores.lightningStore.backend === LightningBackend.LND) {
-            this.actionSubscribeInvoices()
+            if (Platform.OS === "android") {
+                await this.loadInvoiceHistory()
+            } else {
+                this.actionSubscribeInvoices()
+            }
         }
 
         this.updateInvoiceRequestTimer(true)
@@ -4,6 +4,7 @@ import PaymentModel, { PaymentModelLike } from "models/Payment"
 import * as breezSdk from "@breeztech/react-native-breez-sdk"
 import AsyncStorage from "@react-native-async-storage/async-storage"
 import { lnrpc } from "proto/proto"
+import { Platform } from "react-native"
 import { StoreInterface, Store } from "stores/Store"
 import * as lightning from "services/lightning"
 import * as lnd from "services/lnd"
@@ -12,11 +13,26 @@ import { LightningBackend } from "types/lightningBackend"
 import { fromBreezPayment, fromLndPayment, PaymentStatus } from "types/payment"
 import { assertNetwork } from "utils/assert"
 import { DEBUG } from "utils/build"
+import { LIST_PAGE_SIZE } from "utils/constants"
 import { bytesToHex, deepCopy, toHash, toMilliSatoshi, toNumber } from "utils/conversion"
 import I18n from "utils/i18n"
 import { Log } from "utils/logging"
 
 const log = new Log("PaymentStore")
+const listPaymentsFieldMask = [
+    "payments.paymentHash",
+    "payments.paymentPreimage",
+    "payments.paymentRequest",
+    "payments.paymentIndex",
+    "payments.status",
+    "payments.failureReason",
+    "payments.creationTimeNs",
+    "payments.valueSat",
+    "payments.valueMsat",
+    "payments.feeSat",
+    "payments.feeMsat",
+    "lastIndexOffset"
+]
 
 export interface PaymentStoreInterface extends StoreInterface {
     hydrated: boolean
@@ -203,9 +219,26 @@ export class PaymentStore implements PaymentStoreInterface {
 
             this.updateBreezPayments(payments)
         } else if (this.stores.lightningStore.backend === LightningBackend.LND) {
-            const listPaymentsResponse: lnrpc.ListPaymentsResponse = await lnd.listPayments(true, this.indexOffset)
+            if (Platform.OS === "android") {
+                try {
+                    // The native history only fetches payments made since its checkpoint
+                    await lnd.openHistory()
+                    await lnd.queryPaymentHistoryPages(this.indexOffset, LIST_PAGE_SIZE, (listPaymentsResponse) =>
+                        this.updateLndPayments(listPaymentsResponse)
+                    )
+                    return
+                } catch (error) {
+                    log.error(`SAT128: Error loading payment history: ${error}`, true)
+                }
+            }
 
-            this.updateLndPayments(listPaymentsResponse)
+            await lnd.listPaymentPages(
+                true,
+                this.indexOffset,
+                LIST_PAGE_SIZE,
+                (listPaymentsResponse) => this.updateLndPayments(listPaymentsResponse),
+                listPaymentsFieldMask
+            )
         }
     }
 }
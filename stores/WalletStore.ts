@@ -425,8 +425,22 @@ export class WalletStore implements WalletStoreInterface {
 
                 this.actionSetState(!seedMnemonic ? WalletState.NON_EXISTING : WalletState.LOCKED)
             } else if (this.stores.lightningStore.backend === LightningBackend.LND) {
-                // Start lnd and wait for state changes
-                await lnd.start()
+                const password: string = await getSecureItem(SECURE_KEY_WALLET_PASSWORD)
+
+                if (password && Platform.OS === "android") {
+                    // Start lnd and unlock natively, state changes then only report the result
+                    try {
+                        await lnd.startAndUnlock(password)
+                    } catch (error) {
+                        log.error(`SAT125: Error starting and unlocking: ${error}`, true)
+
+                        // Fall back to starting lnd and unlocking on state changes
+                        await lnd.start()
+                    }
+                } else {
+                    // Start lnd and wait for state changes
+                    await lnd.start()
+                }
 
                 this.actionSubscribeState()
             }
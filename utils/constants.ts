@@ -25,6 +25,22 @@ export const MINIMUM_RFID_CHARGE_BALANCE = 60000
 export const ONBOARDING_VERSION = "0.3.0"
 
 export const INVOICE_EXPIRY = 3600
+export const STREAM_BATCH_SIZE = 64
+export const STREAM_BATCH_INTERVAL = 16
+export const STREAM_QUEUE_SIZE = 1024
+export const LIST_PAGE_SIZE = 250
+export const LOG_EVENT_OPTIONS = {
+    level: "info",
+    bufferSize: 500,
+    maxBatchSize: 200,
+    interval: 1000
+}
+export const RESPONSE_CACHE_TTLS = {
+    ChannelBalance: 30000,
+    GetInfo: 10000,
+    ListChannels: 30000,
+    WalletBalance: 30000
+}
 export const MIN_EMERGENCY_SAT = 546
 export const PAYMENT_TIMEOUT_SECONDS = 120
 export const PAYMENT_FEE_LIMIT_SAT = 50000